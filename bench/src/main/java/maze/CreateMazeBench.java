@@ -0,0 +1,52 @@
+//
+// CreateMazeBench.java
+// Benchmarks Maze.CreateMaze (generate and solve) for rectangular and
+//  circular mazes of several sizes.
+//
+package maze;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+//
+// Maze creation benchmark
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CreateMazeBench {
+
+    // width and height (radials and layers for a circular maze)
+    @Param({"25", "100", "500"})
+    int size;
+
+    @Param({"rectangular", "circular"})
+    String shape;
+
+    Maze maze;
+
+    @Setup(Level.Trial)
+    public void Setup() {
+        maze = new Maze(1);
+        maze.setSize(size, size);
+    }
+
+    @Benchmark
+    public Maze CreateMaze() {
+        maze.CreateMaze(shape.equals("circular"));
+        return maze;
+    }
+}
@@ -0,0 +1,117 @@
+//
+// DrawBench.java
+// Benchmarks the 2D drawing code (MazeDlg.MazeView.DrawRectangular and
+//  DrawCircular) drawing into an off screen BufferedImage.
+//
+//  Paint repaints a view whose cached layers are already drawn, which
+//    should take the same time whatever the size of the maze.  Pan moves a
+//    view zoomed in on the maze a few pixels at a time, as dragging it does.
+//
+package maze;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+//
+// Drawing benchmark
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class DrawBench {
+
+    private static final int IMAGE_SIZE = 800;
+    private static final int PAN_ZOOM = 4;
+
+    @Param({"25", "100"})
+    int size;
+
+    @Param({"false", "true"})
+    boolean showSolution;
+
+    MazeDlg.MazeView rectView;
+    MazeDlg.MazeView circView;
+    BufferedImage image;
+    Graphics2D g;
+    int panStep = 0;
+
+    @Setup(Level.Trial)
+    public void Setup() {
+        rectView = CreateView(false);
+        circView = CreateView(true);
+        image = new BufferedImage(IMAGE_SIZE, IMAGE_SIZE, BufferedImage.TYPE_INT_RGB);
+        g = image.createGraphics();
+    }
+
+    @TearDown(Level.Trial)
+    public void TearDown() {
+        g.dispose();
+    }
+
+    // Create a view of a new maze
+    private MazeDlg.MazeView CreateView(boolean circular) {
+        Maze maze = new Maze(1);
+        maze.setSize(size, size);
+        maze.CreateMaze(circular);
+        MazeDlg.MazeView view = new MazeDlg.MazeView();
+        view.setMaze(maze);
+        view.setShowSolution(showSolution);
+        view.setSize(IMAGE_SIZE, IMAGE_SIZE);
+        return view;
+    }
+
+    // Clear the image, the drawing code takes its bounds from the clip
+    private void Clear() {
+        g.setClip(0, 0, IMAGE_SIZE, IMAGE_SIZE);
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, IMAGE_SIZE, IMAGE_SIZE);
+    }
+
+    @Benchmark
+    public BufferedImage DrawRectangular() {
+        Clear();
+        rectView.DrawRectangular(g);
+        return image;
+    }
+
+    @Benchmark
+    public BufferedImage DrawCircular() {
+        Clear();
+        circView.DrawCircular(g);
+        return image;
+    }
+
+    @Benchmark
+    public BufferedImage Paint() {
+        g.setClip(0, 0, IMAGE_SIZE, IMAGE_SIZE);
+        rectView.paintComponent(g);
+        return image;
+    }
+
+    @Benchmark
+    public BufferedImage Pan() {
+        int range = IMAGE_SIZE * (PAN_ZOOM - 1);
+        panStep = (panStep + 5) % range;
+        rectView.setView(PAN_ZOOM, panStep, panStep / 2);
+        g.setClip(0, 0, IMAGE_SIZE, IMAGE_SIZE);
+        rectView.paintComponent(g);
+        return image;
+    }
+}
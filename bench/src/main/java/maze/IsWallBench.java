@@ -0,0 +1,66 @@
+//
+// IsWallBench.java
+// Benchmarks scanning every wall of a maze with Maze.IsWall, as the drawing
+//  code does.
+//
+package maze;
+
+import java.util.concurrent.TimeUnit;
+import maze.Maze.Walls;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+//
+// Wall scan benchmark, the score is per IsWall call
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IsWallBench {
+
+    private static final int SIZE = 500;
+    private static final Walls DIRS[] = {Walls.North, Walls.East, Walls.South, Walls.West};
+
+    // store the map is held in, on or off the heap
+    @Param({"false", "true"})
+    boolean offHeap;
+
+    Maze maze;
+
+    @Setup(Level.Trial)
+    public void Setup() {
+        maze = new Maze(1);
+        maze.setSize(SIZE, SIZE);
+        maze.setOffHeap(offHeap);
+        maze.Generate(false);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE * SIZE * 4)
+    public int ScanWalls() {
+        int walls = 0;
+        for (int y = 0; y < SIZE; y++) {
+            for (int x = 0; x < SIZE; x++) {
+                for (Walls dir : DIRS) {
+                    if (maze.IsWall(x, y, dir)) {
+                        walls++;
+                    }
+                }
+            }
+        }
+        return walls;
+    }
+}
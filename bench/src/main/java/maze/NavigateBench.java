@@ -0,0 +1,89 @@
+//
+// NavigateBench.java
+// Benchmarks a player walking a maze as the 3D view does, asking
+//  GetNextSolutionPoint for the way to go then making the Move.
+//
+package maze;
+
+import java.util.concurrent.TimeUnit;
+import maze.Maze.Navigate;
+import maze.Maze.Walls;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+//
+// Navigation benchmark, the score is per step
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NavigateBench {
+
+    @Param({"25", "500"})
+    int size;
+
+    @Param({"rectangular", "circular"})
+    String shape;
+
+    Maze maze;
+    Walls facing;
+    int x;
+    int y;
+
+    @Setup(Level.Trial)
+    public void Setup() {
+        maze = new Maze(1);
+        maze.setSize(size, size);
+        maze.CreateMaze(shape.equals("circular"));
+        Restart();
+    }
+
+    // Go back to the entrance, facing into the maze
+    private void Restart() {
+        x = maze.getEntrancePos();
+        y = maze.getHeight();
+        facing = Walls.North;
+        maze.setPos(x, y);
+        maze.ResetSolution();
+    }
+
+    // Take one step towards the exit, the way the hint says
+    @Benchmark
+    public Navigate Step() {
+        if (maze.Completed()) {
+            Restart();
+        }
+        Navigate hint = maze.GetNextSolutionPoint(facing);
+        Walls way = (y == maze.getHeight()) ? Walls.North : maze.WayOut(x, y);
+        if (maze.Move(way)) {
+            facing = way;
+            switch (way) {
+                case North:
+                    y--;
+                    break;
+                case South:
+                    y++;
+                    break;
+                case East:
+                    x = (x + 1) % maze.getWidth();
+                    break;
+                default:
+                    x = (x + maze.getWidth() - 1) % maze.getWidth();
+                    break;
+            }
+        }
+        return hint;
+    }
+}
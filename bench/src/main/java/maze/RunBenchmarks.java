@@ -0,0 +1,28 @@
+//
+// RunBenchmarks.java
+// Entry point of the benchmark jar.  Runs the JMH benchmarks given on the
+//  command line (all of them by default) with the GC profiler added, so the
+//  allocation rate of every benchmark is reported with its timing.
+//
+package maze;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+//
+// Benchmark runner
+public class RunBenchmarks {
+
+    public static void main(String args[]) throws RunnerException, CommandLineOptionException {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
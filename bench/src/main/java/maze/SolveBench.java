@@ -0,0 +1,55 @@
+//
+// SolveBench.java
+// Benchmarks Maze.FindSolution from the entrance to the exit of an already
+//  generated maze.
+//
+package maze;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+//
+// Solving benchmark
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SolveBench {
+
+    @Param({"25", "100", "500"})
+    int size;
+
+    @Param({"rectangular", "circular"})
+    String shape;
+
+    @Param({"BFS", "AStar"})
+    MazeSolver.Method method;
+
+    Maze maze;
+
+    @Setup(Level.Trial)
+    public void Setup() {
+        maze = new Maze(1);
+        maze.setSize(size, size);
+        maze.setSolveMethod(method);
+        maze.Generate(shape.equals("circular"));
+    }
+
+    @Benchmark
+    public boolean FindSolution() {
+        return maze.FindSolution(maze.getEntrancePos(), size - 1, maze.getExitPos(), 0);
+    }
+}
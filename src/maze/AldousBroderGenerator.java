@@ -0,0 +1,50 @@
+//
+// AldousBroderGenerator.java
+// Generates a maze using the Aldous-Broder algorithm.
+//
+//  A single random walk wanders the map, breaking the wall into any square
+//    it enters for the first time, until every square has been visited.
+//    Every possible maze is equally likely and no working storage is needed,
+//    but the walk visits each square many times so it is the slowest
+//    generator on large mazes.
+//
+package maze;
+
+import java.util.Random;
+import maze.Maze.Walls;
+
+//
+// Aldous-Broder generator
+public class AldousBroderGenerator implements MazeGenerator {
+
+    @Override
+    public Algorithm getAlgorithm() {
+        return Algorithm.AldousBroder;
+    }
+
+    @Override
+    public void Generate(Maze maze, Random rand) {
+        int cells = maze.getWidth() * maze.getHeight();
+
+        int cell = rand.nextInt(cells);
+        maze.MarkUsed(cell);
+        int remaining = cells - 1;
+
+        while (remaining > 0) {
+            Walls dir = maze.RandomDirection(cell, rand);
+            int next = maze.Neighbour(cell, dir);
+
+            // First visit to this square, join it to the maze
+            if (maze.IsAvailable(next)) {
+                maze.Carve(cell, dir);
+                remaining--;
+            }
+            cell = next;
+        }
+    }
+
+    @Override
+    public long getWorkingBytes() {
+        return 0;
+    }
+}
@@ -0,0 +1,100 @@
+//
+// BacktrackerGenerator.java
+// Generates a maze using a recursive backtracker (depth first search).
+//
+//  From a random start square a path is carved into a random available
+//    neighbour until it reaches a dead end, then it backs up until a square
+//    with an available neighbour is found.  This gives long twisting
+//    passages.  The path is held on an explicit stack, so the size of the
+//    maze is not limited by the thread stack.
+//
+package maze;
+
+import java.util.Random;
+import maze.Maze.Walls;
+
+//
+// Recursive backtracker generator
+public class BacktrackerGenerator implements MazeGenerator {
+
+    // Order in which the directions are counted when picking one at random
+    private static final Walls DIRS[] = {Walls.West, Walls.North, Walls.East, Walls.South};
+
+    private long workingBytes = 0;
+    private int peakDepth = 0;
+
+    @Override
+    public Algorithm getAlgorithm() {
+        return Algorithm.Backtracker;
+    }
+
+    @Override
+    public void Generate(Maze maze, Random rand) {
+        int width = maze.getWidth();
+        int height = maze.getHeight();
+        IntStack path = new IntStack(Math.max(width, height));
+
+        // select a random start point
+        int x = rand.nextInt(width);
+        int y = rand.nextInt(height);
+        int start = maze.CellIndex(x, y);
+        maze.MarkUsed(start);
+        path.Push(start);
+
+        // Squares are visited, and random numbers drawn, in exactly the same
+        //  order as the original recursive version
+        while (!path.isEmpty()) {
+            int cell = path.Peek();
+            Walls w = SelectWall(maze, rand, cell);
+
+            if (w == Walls.Available) {
+                // dead end, go back along the path
+                path.Pop();
+            } else {
+                path.Push(maze.Carve(cell, w));
+            }
+        }
+
+        workingBytes = path.BytesUsed();
+        peakDepth = path.getPeak();
+    }
+
+    // randomly select an available direction to break the wall,
+    //  or Available if there is none
+    private Walls SelectWall(Maze maze, Random rand, int cell) {
+        // Get the directions we can go
+        int count = 0;
+        int found = 0;
+        for (int i = 0; i < DIRS.length; i++) {
+            int next = maze.Neighbour(cell, DIRS[i]);
+            if (next >= 0 && maze.IsAvailable(next)) {
+                found |= 1 << i;
+                count++;
+            }
+        }
+
+        // If we cannot move on the path, tell the caller
+        if (count == 0) {
+            return Walls.Available;
+        }
+
+        // Pick and return one of the available directions
+        int item = rand.nextInt(count);
+        for (int i = 0; i < DIRS.length; i++) {
+            if ((found & (1 << i)) != 0 && item-- == 0) {
+                return DIRS[i];
+            }
+        }
+        return Walls.Available;
+    }
+
+    @Override
+    public long getWorkingBytes() {
+        return workingBytes;
+    }
+
+    @Override
+    public int getPeakDepth() {
+        return peakDepth;
+    }
+}
@@ -0,0 +1,229 @@
+//
+// BidirectionalSolver.java
+// Finds the path between two squares by searching from both ends at once.
+//
+//  One breadth first search starts from the start square on the calling
+//    thread, and another from the target square on a pool thread.  They
+//    share one byte per square, claimed with a compare-and-set, holding which
+//    search reached the square and the direction it came from.  When a search
+//    fails to claim a square because the other search has it, the two have
+//    met; the first to record the meeting ends both searches.  No locks are
+//    taken.  Each search only has to reach about half way, so far fewer
+//    squares are visited than searching from one end, with no index built.
+//
+//  A search in progress can be stopped from another thread with Cancel(),
+//    or by interrupting the calling thread.  Steps follow Maze.Step, so the
+//    wrap around of a circular maze is allowed for.  In a perfect maze the
+//    path is the only one; otherwise it is a path, not always the shortest.
+//
+package maze;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicLong;
+import maze.Maze.Walls;
+
+//
+// Two-thread bidirectional maze solver
+public class BidirectionalSolver {
+
+    private static final VarHandle STATE = MethodHandles.arrayElementVarHandle(byte[].class);
+    private static final Walls DIRS[] = {Walls.North, Walls.East, Walls.South, Walls.West};
+    private static final Walls BY_ORDINAL[] = Walls.values();
+
+    // Square state, the search which reached it and the direction (ordinal
+    //  + 1) taken to get there, 0 for the first square of a search
+    private static final int FROM_START = 0x10;
+    private static final int FROM_TARGET = 0x20;
+    private static final int DIR_MASK = 0x0F;
+
+    private final Maze maze;
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+    private byte state[] = new byte[0];
+
+    // Squares reached by each search, also used as its queue
+    private int startReached[] = new int[16];
+    private int startCount = 0;
+    private int targetReached[] = new int[16];
+    private int targetCount = 0;
+
+    // (start side square << 32 | target side square) where the searches met, -1 if not yet
+    private final AtomicLong meeting = new AtomicLong(-1);
+    private volatile boolean finished;  // the searches have met, or one has run out of squares
+    private volatile boolean cancelled;
+
+    // Constructor - solve the given maze
+    public BidirectionalSolver(Maze maze) {
+        this.maze = maze;
+    }
+
+    // Set the pool the search from the target is run on
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    // Stop the search in progress, Solve returns null.  May be called from any thread
+    public void Cancel() {
+        cancelled = true;
+    }
+
+    // Was the last search cancelled
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    // Number of squares the last search reached, from both ends
+    public int getVisited() {
+        return startCount + targetCount;
+    }
+
+    // Find the path between two squares.  Returns the square indexes
+    //  (y * width + x) from the start to the target inclusive, or null if
+    //  there is no path or the search was cancelled.
+    public int[] Solve(int fromx, int fromy, int tox, int toy) {
+        return Solve(maze.CellIndex(fromx, fromy), maze.CellIndex(tox, toy));
+    }
+
+    // Find the path between two squares given as indexes
+    public synchronized int[] Solve(int from, int to) {
+        int cells = maze.getWidth() * maze.getHeight();
+        if (state.length != cells) {
+            state = new byte[cells];
+        }
+        cancelled = false;
+        finished = false;
+        meeting.set(-1);
+        startCount = 0;
+        targetCount = 0;
+
+        if (from == to) {
+            return new int[]{from};
+        }
+
+        state[from] = FROM_START;
+        startReached = Reach(startReached, startCount++, from);
+        state[to] = FROM_TARGET;
+        targetReached = Reach(targetReached, targetCount++, to);
+
+        int path[] = null;
+        try {
+            ForkJoinTask<?> fromTarget = pool.submit(this::SearchFromTarget);
+            SearchFromStart();
+            fromTarget.join();
+
+            long met = meeting.get();
+            if (met >= 0 && !cancelled) {
+                path = BuildPath((int) (met >>> 32), (int) met);
+            }
+        } finally {
+            // clear the squares we have used ready for the next search
+            for (int i = 0; i < startCount; i++) {
+                state[startReached[i]] = 0;
+            }
+            for (int i = 0; i < targetCount; i++) {
+                state[targetReached[i]] = 0;
+            }
+        }
+        return path;
+    }
+
+    // Breadth first search out from the start, on the calling thread
+    private void SearchFromStart() {
+        Thread caller = Thread.currentThread();
+        int head = 0;
+        while (head < startCount) {
+            if (finished || cancelled) {
+                return;
+            }
+            if (caller.isInterrupted()) {
+                cancelled = true;
+                return;
+            }
+            int cell = startReached[head++];
+            for (Walls dir : DIRS) {
+                int next = maze.Step(cell, dir);
+                if (next < 0) {
+                    continue;
+                }
+                if (STATE.compareAndSet(state, next, (byte) 0, (byte) (FROM_START | (dir.ordinal() + 1)))) {
+                    startReached = Reach(startReached, startCount++, next);
+                } else if (((byte) STATE.getVolatile(state, next) & FROM_TARGET) != 0) {
+                    Meet(cell, next);
+                    return;
+                }
+            }
+        }
+        finished = true;  // no squares left, there is no path
+    }
+
+    // Breadth first search out from the target, on a pool thread
+    private void SearchFromTarget() {
+        int head = 0;
+        while (head < targetCount) {
+            if (finished || cancelled) {
+                return;
+            }
+            int cell = targetReached[head++];
+            for (Walls dir : DIRS) {
+                int next = maze.Step(cell, dir);
+                if (next < 0) {
+                    continue;
+                }
+                if (STATE.compareAndSet(state, next, (byte) 0, (byte) (FROM_TARGET | (dir.ordinal() + 1)))) {
+                    targetReached = Reach(targetReached, targetCount++, next);
+                } else if (((byte) STATE.getVolatile(state, next) & FROM_START) != 0) {
+                    Meet(next, cell);
+                    return;
+                }
+            }
+        }
+        finished = true;
+    }
+
+    // Record where the searches met, unless the other search already has
+    private void Meet(int startSide, int targetSide) {
+        meeting.compareAndSet(-1, ((long) startSide << 32) | (targetSide & 0xFFFFFFFFL));
+        finished = true;
+    }
+
+    // Add a square to a reached list, growing it if needed
+    private static int[] Reach(int reached[], int count, int cell) {
+        if (count == reached.length) {
+            reached = Arrays.copyOf(reached, reached.length * 2);
+        }
+        reached[count] = cell;
+        return reached;
+    }
+
+    // Square a search came from to reach a square, -1 for its first square
+    private int Parent(int cell) {
+        int dir = state[cell] & DIR_MASK;
+        return (dir == 0) ? -1 : maze.Neighbour(cell, BY_ORDINAL[dir - 1].Opposite());
+    }
+
+    // Join the paths back to the start and to the target at the meeting point
+    private int[] BuildPath(int startSide, int targetSide) {
+        int toStart = 0;
+        for (int cell = startSide; cell >= 0; cell = Parent(cell)) {
+            toStart++;
+        }
+        int toTarget = 0;
+        for (int cell = targetSide; cell >= 0; cell = Parent(cell)) {
+            toTarget++;
+        }
+
+        int path[] = new int[toStart + toTarget];
+        int i = toStart - 1;
+        for (int cell = startSide; cell >= 0; cell = Parent(cell)) {
+            path[i--] = cell;
+        }
+        i = toStart;
+        for (int cell = targetSide; cell >= 0; cell = Parent(cell)) {
+            path[i++] = cell;
+        }
+        return path;
+    }
+}
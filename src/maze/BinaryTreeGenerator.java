@@ -0,0 +1,51 @@
+//
+// BinaryTreeGenerator.java
+// Generates a maze using the binary tree algorithm.
+//
+//  Each square breaks either its North or its East wall at random.  This
+//    needs a single pass, one random number per square and no working
+//    storage, so it is the fastest generator, but the mazes have a clear
+//    bias: the north row and east column are straight corridors.
+//
+//  On a circular maze the wall between the far east and far west squares is
+//    left in place, as each row needs an end; the result is still a perfect
+//    maze.
+//
+package maze;
+
+import java.util.Random;
+import maze.Maze.Walls;
+
+//
+// Binary tree generator
+public class BinaryTreeGenerator implements MazeGenerator {
+
+    @Override
+    public Algorithm getAlgorithm() {
+        return Algorithm.BinaryTree;
+    }
+
+    @Override
+    public void Generate(Maze maze, Random rand) {
+        int width = maze.getWidth();
+        int height = maze.getHeight();
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                boolean north = y > 0;
+                boolean east = x < width - 1;
+
+                if (north && (!east || rand.nextBoolean())) {
+                    maze.Carve(maze.CellIndex(x, y), Walls.North);
+                } else if (east) {
+                    maze.Carve(maze.CellIndex(x, y), Walls.East);
+                }
+            }
+        }
+    }
+
+    @Override
+    public long getWorkingBytes() {
+        return 0;
+    }
+}
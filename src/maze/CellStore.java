@@ -0,0 +1,49 @@
+//
+// CellStore.java
+// Defines the storage used for the cells of a maze map.
+//
+//  Each cell is held as a small set of bits, one bit per Maze.Walls value
+//    (see Walls.Bit()), with cells addressed by a flat row-major index
+//    (y * width + x).  This replaces one EnumSet object per cell.
+//
+package maze;
+
+//
+// Packed cell storage
+public interface CellStore extends AutoCloseable {
+
+    // Get the bits of a cell
+    int Get(int cell);
+
+    // Replace the bits of a cell
+    void Set(int cell, int bits);
+
+    // Set every cell to the same bits
+    void Fill(int bits);
+
+    // Number of cells held
+    int size();
+
+    // Number of bytes used to hold the cells
+    long BytesUsed();
+
+    // Set the given bits in a cell
+    default void Add(int cell, int bits) {
+        Set(cell, Get(cell) | bits);
+    }
+
+    // Clear the given bits in a cell
+    default void Remove(int cell, int bits) {
+        Set(cell, Get(cell) & ~bits);
+    }
+
+    // Test whether any of the given bits are set in a cell
+    default boolean Contains(int cell, int bits) {
+        return (Get(cell) & bits) != 0;
+    }
+
+    // Release any memory held outside the heap
+    @Override
+    default void close() {
+    }
+}
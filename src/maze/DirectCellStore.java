@@ -0,0 +1,85 @@
+//
+// DirectCellStore.java
+// Cell storage outside the Java heap, one byte per cell in a direct buffer.
+//
+//  The map does not count against the heap size and is never scanned or
+//    copied by the garbage collector, so very large mazes can be held in a
+//    small heap.  The memory is released by close(), rather than waiting for
+//    the buffer to be collected.  As cells are indexed by an int, a store
+//    holds at most 2GB.
+//
+package maze;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+//
+// Byte per cell off-heap store
+public class DirectCellStore implements CellStore {
+
+    private ByteBuffer cells;
+    private final int size;
+
+    // Constructor - allocate the cells, all bits clear
+    public DirectCellStore(int size) {
+        this.size = size;
+        cells = ByteBuffer.allocateDirect(size);
+    }
+
+    @Override
+    public int Get(int cell) {
+        return cells.get(cell);
+    }
+
+    @Override
+    public void Set(int cell, int bits) {
+        cells.put(cell, (byte) bits);
+    }
+
+    @Override
+    public void Fill(int bits) {
+        byte block[] = new byte[Math.min(size, 1 << 16)];
+        Arrays.fill(block, (byte) bits);
+
+        ByteBuffer fill = cells.duplicate();
+        fill.clear();
+        while (fill.hasRemaining()) {
+            fill.put(block, 0, Math.min(block.length, fill.remaining()));
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public long BytesUsed() {
+        return (cells == null) ? 0 : size;
+    }
+
+    // Free the memory now.  The store can not be used afterwards
+    @Override
+    public void close() {
+        if (cells != null) {
+            FreeBuffer(cells);
+            cells = null;
+        }
+    }
+
+    // Release the memory of a direct buffer straight away, if the JVM allows
+    //  it (sun.misc.Unsafe.invokeCleaner), otherwise leave it to the collector
+    static void FreeBuffer(ByteBuffer buffer) {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            invokeCleaner.invoke(theUnsafe.get(null), buffer);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // not available, the buffer is freed when it is collected
+        }
+    }
+}
@@ -0,0 +1,70 @@
+//
+// DirectIntStore.java
+// Int storage outside the Java heap, in direct buffers.
+//
+//  A direct buffer holds at most 2GB, so the ints are split over buffers of
+//    CHUNK ints (1GB) each, and a store can hold an int for every square of
+//    the largest maze.  The memory is released by close().
+//
+package maze;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+
+//
+// Off-heap int store
+public class DirectIntStore implements IntStore {
+
+    private static final int CHUNK_BITS = 28;
+    private static final int CHUNK = 1 << CHUNK_BITS;
+
+    private ByteBuffer buffers[];
+    private IntBuffer chunks[];
+    private final int size;
+
+    // Constructor - allocate the ints, all zero
+    public DirectIntStore(int size) {
+        this.size = size;
+        int count = (int) (((long) size + CHUNK - 1) >> CHUNK_BITS);
+        buffers = new ByteBuffer[count];
+        chunks = new IntBuffer[count];
+        for (int i = 0; i < count; i++) {
+            int ints = (int) Math.min(CHUNK, (long) size - ((long) i << CHUNK_BITS));
+            buffers[i] = ByteBuffer.allocateDirect(ints * Integer.BYTES).order(ByteOrder.nativeOrder());
+            chunks[i] = buffers[i].asIntBuffer();
+        }
+    }
+
+    @Override
+    public int Get(int index) {
+        return chunks[index >>> CHUNK_BITS].get(index & (CHUNK - 1));
+    }
+
+    @Override
+    public void Set(int index, int value) {
+        chunks[index >>> CHUNK_BITS].put(index & (CHUNK - 1), value);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public long BytesUsed() {
+        return (buffers == null) ? 0 : (long) size * Integer.BYTES;
+    }
+
+    // Free the memory now.  The store can not be used afterwards
+    @Override
+    public void close() {
+        if (buffers != null) {
+            for (ByteBuffer buffer : buffers) {
+                DirectCellStore.FreeBuffer(buffer);
+            }
+            buffers = null;
+            chunks = null;
+        }
+    }
+}
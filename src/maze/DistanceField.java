@@ -0,0 +1,97 @@
+//
+// DistanceField.java
+// The distance from every square of a maze to one target square.
+//
+//  Built once by a breadth first search out from the target, and held as one
+//    int per square.  The way to the target from any square is the open
+//    neighbour one step closer, so "how far" and "which way" are answered in
+//    constant time, without a path list to keep up to date however far the
+//    player wanders.  The field must be built again if the map changes.
+//
+package maze;
+
+import java.util.Arrays;
+import maze.Maze.Walls;
+
+//
+// Distance to target field
+public class DistanceField {
+
+    private static final Walls DIRS[] = {Walls.North, Walls.East, Walls.South, Walls.West};
+
+    private final Maze maze;
+    private final int target;
+    private final int distance[];  // moves to the target, -1 if it can not be reached
+    private final int reached;  // squares which can reach the target
+
+    // Constructor - search out from the target square over the whole maze
+    public DistanceField(Maze maze, int target) {
+        this.maze = maze;
+        this.target = target;
+
+        int cells = maze.getWidth() * maze.getHeight();
+        distance = new int[cells];
+        Arrays.fill(distance, -1);
+
+        int queue[] = new int[cells];
+        int head = 0;
+        int tail = 0;
+        distance[target] = 0;
+        queue[tail++] = target;
+
+        while (head < tail) {
+            int cell = queue[head++];
+            for (Walls dir : DIRS) {
+                int next = maze.Step(cell, dir);
+                if (next >= 0 && distance[next] < 0) {
+                    distance[next] = distance[cell] + 1;
+                    queue[tail++] = next;
+                }
+            }
+        }
+        reached = tail;
+    }
+
+    // Get the square the distances are measured to
+    public int getTarget() {
+        return target;
+    }
+
+    // Number of squares the search reached, the target included
+    public int getReached() {
+        return reached;
+    }
+
+    // Number of moves from a square to the target, -1 if it can not be reached
+    public int Distance(int cell) {
+        return distance[cell];
+    }
+
+    // Direction to move from a square to get closer to the target, null at
+    //  the target or if it can not be reached
+    public Walls NextStep(int cell) {
+        int d = distance[cell];
+        if (d <= 0) {
+            return null;
+        }
+        for (Walls dir : DIRS) {
+            int next = maze.Step(cell, dir);
+            if (next >= 0 && distance[next] == d - 1) {
+                return dir;
+            }
+        }
+        return null;
+    }
+
+    // Square one move closer to the target, -1 at the target or if it can
+    //  not be reached
+    public int NextCell(int cell) {
+        Walls dir = NextStep(cell);
+        return (dir == null) ? -1 : maze.Neighbour(cell, dir);
+    }
+
+    // Number of bytes used by the field
+    public long BytesUsed() {
+        return (long) distance.length * Integer.BYTES;
+    }
+}
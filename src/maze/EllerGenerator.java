@@ -0,0 +1,178 @@
+//
+// EllerGenerator.java
+// Generates a maze using Eller's algorithm, one row at a time.
+//
+//  Only the current row is held: the set each square belongs to, and which
+//    squares have a passage to the row below.  In each row neighbouring
+//    squares in different sets are joined at random, then every set gets at
+//    least one passage down into the next row; the last row joins all the
+//    remaining sets.  Memory is bounded by the width, not the height, so
+//    rows can be streamed to a RowSink (a file or a renderer) for mazes far
+//    larger than the heap.  On a circular maze the far east and far west
+//    squares of each row are joined like any other neighbours.
+//
+package maze;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Random;
+import maze.Maze.Walls;
+
+//
+// Eller generator
+public class EllerGenerator implements MazeGenerator {
+
+    private static final int WALL_BITS = Walls.North.Bit() | Walls.East.Bit() | Walls.South.Bit() | Walls.West.Bit();
+
+    private long workingBytes = 0;
+
+    @Override
+    public Algorithm getAlgorithm() {
+        return Algorithm.Eller;
+    }
+
+    // Generate into an in-memory maze
+    @Override
+    public void Generate(Maze maze, Random rand) {
+        int width = maze.getWidth();
+        try {
+            Generate(width, maze.getHeight(), maze.isCircular(), -1, -1, rand, (int y, byte walls[]) -> {
+                int base = maze.CellIndex(0, y);
+                for (int x = 0; x < width; x++) {
+                    if ((walls[x] & Walls.East.Bit()) == 0) {
+                        maze.Carve(base + x, Walls.East);
+                    }
+                    if ((walls[x] & Walls.South.Bit()) == 0) {
+                        maze.Carve(base + x, Walls.South);
+                    }
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);  // the maze sink does no I/O
+        }
+    }
+
+    // Generate a maze straight to a sink, with a random entrance and exit
+    public void Stream(int width, int height, boolean circular, Random rand, RowSink sink) throws IOException {
+        int entrance = rand.nextInt(width);
+        int exit = rand.nextInt(width);
+
+        sink.Begin(width, height, circular, entrance, exit);
+        Generate(width, height, circular, entrance, exit, rand, sink);
+        sink.End();
+    }
+
+    // Generate the rows, opening the North wall of the exit on the top row
+    //  and the South wall of the entrance on the bottom row (-1 for none)
+    private void Generate(int width, int height, boolean circular, int entrance, int exit,
+            Random rand, RowSink sink) throws IOException {
+        int set[] = new int[width];      // set label of each square
+        int parent[] = new int[width];   // union-find over the set labels
+        int count[] = new int[width];    // squares in each set
+        int pick[] = new int[width];     // square chosen to go down if the set has no other
+        boolean down[] = new boolean[width];     // passage South from each square
+        boolean hasDown[] = new boolean[width];  // set has a passage South
+        boolean north[] = new boolean[width];    // passage North into each square
+        byte row[] = new byte[width];
+
+        workingBytes = 4L * width * Integer.BYTES + 4L * width;
+
+        // each square of the first row is in its own set
+        for (int x = 0; x < width; x++) {
+            set[x] = x;
+        }
+
+        int joins = (circular && width > 1) ? width : width - 1;
+
+        for (int y = 0; y < height; y++) {
+            boolean last = (y == height - 1);
+
+            for (int x = 0; x < width; x++) {
+                parent[x] = x;
+                row[x] = (byte) (north[x] ? WALL_BITS & ~Walls.North.Bit() : WALL_BITS);
+            }
+            if (y == 0 && exit >= 0) {
+                row[exit] &= ~Walls.North.Bit();
+            }
+
+            // Join neighbouring squares in different sets at random,
+            //  or all of them on the last row
+            for (int x = 0; x < joins; x++) {
+                int right = (x + 1) % width;
+                int a = Find(parent, set[x]);
+                int b = Find(parent, set[right]);
+                if (a != b && (last || rand.nextBoolean())) {
+                    parent[b] = a;
+                    row[x] &= ~Walls.East.Bit();
+                    row[right] &= ~Walls.West.Bit();
+                }
+            }
+
+            if (last) {
+                if (entrance >= 0) {
+                    row[entrance] &= ~Walls.South.Bit();
+                }
+                sink.Row(y, row);
+                break;
+            }
+
+            // Pick the passages down, at least one for each set
+            Arrays.fill(count, 0);
+            Arrays.fill(hasDown, false);
+            for (int x = 0; x < width; x++) {
+                int s = set[x] = Find(parent, set[x]);
+                if (rand.nextInt(++count[s]) == 0) {
+                    pick[s] = x;
+                }
+                down[x] = rand.nextBoolean();
+                hasDown[s] |= down[x];
+            }
+            for (int x = 0; x < width; x++) {
+                int s = set[x];
+                if (!hasDown[s]) {
+                    down[pick[s]] = true;
+                    hasDown[s] = true;
+                }
+                if (down[x]) {
+                    row[x] &= ~Walls.South.Bit();
+                }
+            }
+            sink.Row(y, row);
+
+            // Squares below a passage stay in their set, the rest get new sets.
+            //  hasDown is re-used to mark the set labels still in use
+            Arrays.fill(hasDown, false);
+            for (int x = 0; x < width; x++) {
+                if (down[x]) {
+                    hasDown[set[x]] = true;
+                }
+            }
+            int free = 0;
+            for (int x = 0; x < width; x++) {
+                north[x] = down[x];
+                if (!down[x]) {
+                    while (hasDown[free]) {
+                        free++;
+                    }
+                    set[x] = free;
+                    hasDown[free] = true;
+                }
+            }
+        }
+    }
+
+    // Find the root label of a set, halving the path as we go
+    private static int Find(int parent[], int s) {
+        while (parent[s] != s) {
+            parent[s] = parent[parent[s]];
+            s = parent[s];
+        }
+        return s;
+    }
+
+    @Override
+    public long getWorkingBytes() {
+        return workingBytes;
+    }
+}
@@ -0,0 +1,165 @@
+//
+// FrameStats.java
+// Frame time and render statistics for the 3D view.
+//
+//  The last WINDOW frames are kept in ring buffers: when each started, how
+//    long it took, how much of that was spent in DoAnimate and how much
+//    sending the geometry, and how many quads were sent.  Percentiles are
+//    worked out over the window when asked for, so recording a frame is a
+//    few stores and no allocation.
+//
+//  Times are measured on the CPU around the calls to OpenGL; the driver may
+//    still be drawing when display() returns, so they show the cost of
+//    building each frame rather than of the GPU.  The getters may be called
+//    from any thread.
+//
+package maze;
+
+import java.util.Arrays;
+
+//
+// Rolling frame statistics
+public class FrameStats {
+
+    public static final int WINDOW = 256;
+    private static final long SECOND = 1_000_000_000L;
+
+    private final long started[] = new long[WINDOW];
+    private final long frameNanos[] = new long[WINDOW];
+    private final long animateNanos[] = new long[WINDOW];
+    private final long geometryNanos[] = new long[WINDOW];
+    private final int quads[] = new int[WINDOW];
+    private int next = 0;  // where the next frame goes
+    private int count = 0;  // frames held
+    private long frames = 0;  // frames recorded in all
+
+    // The frame being drawn
+    private long frameStart;
+    private long animateStart;
+    private long geometryStart;
+    private long frameAnimate;
+    private long frameGeometry;
+
+    // Start timing a frame
+    void BeginFrame() {
+        frameStart = System.nanoTime();
+        frameAnimate = 0;
+        frameGeometry = 0;
+    }
+
+    void BeginAnimate() {
+        animateStart = System.nanoTime();
+    }
+
+    void EndAnimate() {
+        frameAnimate += System.nanoTime() - animateStart;
+    }
+
+    void BeginGeometry() {
+        geometryStart = System.nanoTime();
+    }
+
+    void EndGeometry() {
+        frameGeometry += System.nanoTime() - geometryStart;
+    }
+
+    // Finish timing a frame which sent the given number of quads
+    synchronized void EndFrame(int frameQuads) {
+        started[next] = frameStart;
+        frameNanos[next] = System.nanoTime() - frameStart;
+        animateNanos[next] = frameAnimate;
+        geometryNanos[next] = frameGeometry;
+        quads[next] = frameQuads;
+        next = (next + 1) % WINDOW;
+        count = Math.min(count + 1, WINDOW);
+        frames++;
+    }
+
+    // Forget the frames recorded so far
+    public synchronized void Reset() {
+        next = 0;
+        count = 0;
+        frames = 0;
+    }
+
+    // Number of frames recorded
+    public synchronized long getFrames() {
+        return frames;
+    }
+
+    // Frames started in the last second
+    public synchronized int getFps() {
+        long since = System.nanoTime() - SECOND;
+        int fps = 0;
+        for (int i = 0; i < count; i++) {
+            if (started[i] - since > 0) {
+                fps++;
+            }
+        }
+        return fps;
+    }
+
+    // Time to build a frame, in milliseconds, that a fraction of the frames
+    //  in the window took no longer than
+    public synchronized double FrameMillis(double fraction) {
+        if (count == 0) {
+            return 0.0;
+        }
+        long sorted[] = Arrays.copyOf(frameNanos, count);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(fraction * count) - 1;
+        return sorted[Math.max(rank, 0)] / 1.0e6;
+    }
+
+    public double getFrameP50Millis() {
+        return FrameMillis(0.50);
+    }
+
+    public double getFrameP95Millis() {
+        return FrameMillis(0.95);
+    }
+
+    public double getFrameP99Millis() {
+        return FrameMillis(0.99);
+    }
+
+    // Mean time a frame spent in DoAnimate, in milliseconds
+    public synchronized double getAnimateMillis() {
+        return Mean(animateNanos) / 1.0e6;
+    }
+
+    // Mean time a frame spent sending geometry, in milliseconds
+    public synchronized double getGeometryMillis() {
+        return Mean(geometryNanos) / 1.0e6;
+    }
+
+    // Quads sent by the last frame
+    public synchronized int getQuadsPerFrame() {
+        return (count == 0) ? 0 : quads[(next + WINDOW - 1) % WINDOW];
+    }
+
+    // Vertices sent by the last frame, four to a quad
+    public int getVerticesPerFrame() {
+        return 4 * getQuadsPerFrame();
+    }
+
+    private double Mean(long values[]) {
+        if (count == 0) {
+            return 0.0;
+        }
+        long total = 0;
+        for (int i = 0; i < count; i++) {
+            total += values[i];
+        }
+        return (double) total / count;
+    }
+
+    // The statistics as lines of text, for the overlay
+    public String[] Lines() {
+        return new String[]{
+            String.format("%d fps", getFps()),
+            String.format("frame p50 %.2f  p95 %.2f  p99 %.2f ms", getFrameP50Millis(), getFrameP95Millis(), getFrameP99Millis()),
+            String.format("%d quads  %d vertices", getQuadsPerFrame(), getVerticesPerFrame()),
+            String.format("animate %.3f ms  geometry %.3f ms", getAnimateMillis(), getGeometryMillis())};
+    }
+}
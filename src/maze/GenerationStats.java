@@ -0,0 +1,67 @@
+//
+// GenerationStats.java
+// Timing and memory figures for a single maze generation.
+//
+package maze;
+
+//
+// Generation statistics
+public class GenerationStats {
+
+    private final MazeGenerator.Algorithm algorithm;
+    private final int width;
+    private final int height;
+    private final long nanos;       // time taken to generate the map
+    private final long mapBytes;    // bytes used by the maze map
+    private final long peakBytes;   // peak bytes used by the generator working storage
+    private final int peakDepth;    // deepest the path stack went (backtracker only)
+
+    public GenerationStats(MazeGenerator.Algorithm algorithm, int width, int height, long nanos, long mapBytes, long peakBytes, int peakDepth) {
+        this.algorithm = algorithm;
+        this.width = width;
+        this.height = height;
+        this.nanos = nanos;
+        this.mapBytes = mapBytes;
+        this.peakBytes = peakBytes;
+        this.peakDepth = peakDepth;
+    }
+
+    public MazeGenerator.Algorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    public long getCells() {
+        return (long) width * height;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+
+    public long getMapBytes() {
+        return mapBytes;
+    }
+
+    public long getPeakBytes() {
+        return peakBytes;
+    }
+
+    public int getPeakDepth() {
+        return peakDepth;
+    }
+
+    // Peak memory used by the map and generator together
+    public long getTotalPeakBytes() {
+        return mapBytes + peakBytes;
+    }
+
+    public double getCellsPerSecond() {
+        return (nanos == 0) ? 0.0 : getCells() * 1.0e9 / nanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s %dx%d: %.1f ms, %.0f cells/s, map %d bytes, working %d bytes, stack depth %d",
+                algorithm, width, height, nanos / 1.0e6, getCellsPerSecond(), mapBytes, peakBytes, peakDepth);
+    }
+}
@@ -0,0 +1,104 @@
+//
+// GridTopology.java
+// Square grid topologies: rectangular, circular (a cylinder) and torus.
+//
+//  Directions are the Maze.Walls ordinals, North, East, South and West.
+//    A circular maze is a rectangle whose east and west edges are joined;
+//    a torus also joins its north and south edges.
+//
+package maze;
+
+//
+// Square grid topology
+public class GridTopology implements Topology {
+
+    private static final int NORTH = 0;
+    private static final int EAST = 1;
+    private static final int SOUTH = 2;
+    private static final int WEST = 3;
+
+    private final String name;
+    private final boolean circular;
+    private final boolean wrapEastWest;
+    private final boolean wrapNorthSouth;
+
+    // Constructor - give the edges which are joined
+    GridTopology(String name, boolean circular, boolean wrapEastWest, boolean wrapNorthSouth) {
+        this.name = name;
+        this.circular = circular;
+        this.wrapEastWest = wrapEastWest;
+        this.wrapNorthSouth = wrapNorthSouth;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public int getDirections() {
+        return 4;
+    }
+
+    @Override
+    public int Opposite(int dir) {
+        return (dir + 2) & 3;
+    }
+
+    @Override
+    public int Neighbour(int cell, int dir, int width, int height) {
+        int x = cell % width;
+        switch (dir) {
+            case NORTH:
+                if (cell >= width) {
+                    return cell - width;
+                }
+                return wrapNorthSouth ? cell + (height - 1) * width : OFF_MAP;
+            case SOUTH:
+                if (cell < (height - 1) * width) {
+                    return cell + width;
+                }
+                return wrapNorthSouth ? x : OFF_MAP;
+            case EAST:
+                if (x < width - 1) {
+                    return cell + 1;
+                }
+                return wrapEastWest ? cell - x : OFF_MAP;
+            case WEST:
+                if (x > 0) {
+                    return cell - 1;
+                }
+                return wrapEastWest ? cell + width - 1 : OFF_MAP;
+            default:
+                return OFF_MAP;
+        }
+    }
+
+    @Override
+    public int MinMoves(int from, int to, int width, int height) {
+        int dx = Math.abs(from % width - to % width);
+        int dy = Math.abs(from / width - to / width);
+        if (wrapEastWest) {
+            dx = Math.min(dx, width - dx);
+        }
+        if (wrapNorthSouth) {
+            dy = Math.min(dy, height - dy);
+        }
+        return dx + dy;
+    }
+
+    @Override
+    public boolean HasEdge(int dir) {
+        return (dir == NORTH || dir == SOUTH) ? !wrapNorthSouth : !wrapEastWest;
+    }
+
+    @Override
+    public boolean isCircular() {
+        return circular;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,44 @@
+//
+// HeapIntStore.java
+// Int storage on the Java heap, in a single flat array.
+//
+package maze;
+
+import java.util.Arrays;
+
+//
+// Heap int store
+public class HeapIntStore implements IntStore {
+
+    private final int values[];
+
+    // Constructor - allocate the ints, all zero
+    public HeapIntStore(int size) {
+        values = new int[size];
+    }
+
+    // Constructor - the ints of another store, in a store of a new size
+    public HeapIntStore(HeapIntStore from, int size) {
+        values = Arrays.copyOf(from.values, size);
+    }
+
+    @Override
+    public int Get(int index) {
+        return values[index];
+    }
+
+    @Override
+    public void Set(int index, int value) {
+        values[index] = value;
+    }
+
+    @Override
+    public int size() {
+        return values.length;
+    }
+
+    @Override
+    public long BytesUsed() {
+        return (long) values.length * Integer.BYTES;
+    }
+}
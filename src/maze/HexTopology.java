@@ -0,0 +1,80 @@
+//
+// HexTopology.java
+// Hexagonal topology, rows of hexagons with every odd row shifted half a
+//  square east.
+//
+//  There are six directions: East, North East, North West, West, South West
+//    and South East, numbered 0 to 5 so the opposite of a direction is three
+//    on from it.  Squares are still addressed as y * width + x.
+//
+package maze;
+
+//
+// Hexagonal topology
+public class HexTopology implements Topology {
+
+    public static final int EAST = 0;
+    public static final int NORTH_EAST = 1;
+    public static final int NORTH_WEST = 2;
+    public static final int WEST = 3;
+    public static final int SOUTH_WEST = 4;
+    public static final int SOUTH_EAST = 5;
+
+    // Column change for each direction from an even row, then an odd row
+    private static final int DX[][] = {
+        {1, 0, -1, -1, -1, 0},
+        {1, 1, 0, -1, 0, 1}};
+    private static final int DY[] = {0, -1, -1, 0, 1, 1};
+
+    @Override
+    public String getName() {
+        return "hexagonal";
+    }
+
+    @Override
+    public int getDirections() {
+        return 6;
+    }
+
+    @Override
+    public int Opposite(int dir) {
+        return (dir + 3) % 6;
+    }
+
+    @Override
+    public int Neighbour(int cell, int dir, int width, int height) {
+        int x = cell % width;
+        int y = cell / width;
+        int nx = x + DX[y & 1][dir];
+        int ny = y + DY[dir];
+        if (nx < 0 || nx >= width || ny < 0 || ny >= height) {
+            return OFF_MAP;
+        }
+        return ny * width + nx;
+    }
+
+    @Override
+    public int MinMoves(int from, int to, int width, int height) {
+        // in axial co-ordinates, the column is skewed by half the row
+        int fy = from / width;
+        int ty = to / width;
+        int dq = (to % width - (ty >> 1)) - (from % width - (fy >> 1));
+        int dr = ty - fy;
+        return (Math.abs(dq) + Math.abs(dr) + Math.abs(dq + dr)) / 2;
+    }
+
+    @Override
+    public boolean HasEdge(int dir) {
+        return true;
+    }
+
+    @Override
+    public boolean isCircular() {
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return getName();
+    }
+}
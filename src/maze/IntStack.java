@@ -0,0 +1,66 @@
+//
+// IntStack.java
+// A growable stack of ints, used in place of recursion when walking the maze
+//  so that large mazes do not overflow the thread stack.
+//
+package maze;
+
+import java.util.Arrays;
+
+//
+// Primitive int stack
+public class IntStack {
+
+    private int items[];
+    private int size = 0;
+    private int peak = 0;  // deepest the stack has been
+
+    // Constructor - create with an initial capacity
+    public IntStack(int capacity) {
+        items = new int[Math.max(capacity, 16)];
+    }
+
+    // Push a value, growing the storage if needed
+    public void Push(int value) {
+        if (size == items.length) {
+            items = Arrays.copyOf(items, (int) Math.min(Integer.MAX_VALUE - 8, items.length * 2L));
+        }
+        items[size++] = value;
+        if (size > peak) {
+            peak = size;
+        }
+    }
+
+    // Remove and return the top value
+    public int Pop() {
+        return items[--size];
+    }
+
+    // Return the top value without removing it
+    public int Peek() {
+        return items[size - 1];
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Empty the stack, keeping its storage
+    public void Clear() {
+        size = 0;
+    }
+
+    // Deepest the stack has been since created
+    public int getPeak() {
+        return peak;
+    }
+
+    // Number of bytes currently allocated to the stack
+    public long BytesUsed() {
+        return (long) items.length * Integer.BYTES;
+    }
+}
@@ -0,0 +1,32 @@
+//
+// IntStore.java
+// Defines the storage used for an int for each square of a maze, for the
+//  working state of a search.
+//
+//  As with CellStore, the ints are either in an array on the Java heap or,
+//    for a maze held off the heap, in direct buffers, so a large maze can be
+//    solved in a heap no larger than it takes to open it.
+//
+package maze;
+
+//
+// Int per square storage
+public interface IntStore extends AutoCloseable {
+
+    // Get an int
+    int Get(int index);
+
+    // Replace an int
+    void Set(int index, int value);
+
+    // Number of ints held
+    int size();
+
+    // Number of bytes used to hold the ints
+    long BytesUsed();
+
+    // Release any memory held outside the heap
+    @Override
+    default void close() {
+    }
+}
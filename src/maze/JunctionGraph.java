@@ -0,0 +1,482 @@
+//
+// JunctionGraph.java
+// A maze reduced to its junctions and the corridors between them.
+//
+//  Most squares of a maze are corridor squares with exactly two openings.
+//    The graph keeps only the other squares (junctions and dead ends) as
+//    nodes, and joins them with one edge per corridor, weighted by its length
+//    in moves and holding the run of squares along it.  A search then takes
+//    one step per junction instead of one per square, and a path is only
+//    expanded back to squares when it is asked for.
+//
+//  Everything is held in primitive arrays: the nodes and edges themselves,
+//    the corridor runs (edge by edge, in order from the edge's first node),
+//    and an index giving the node or run position of every square so a
+//    search can start and end anywhere.  The graph must be built again if
+//    the map changes.
+//
+package maze;
+
+import java.util.Arrays;
+import maze.Maze.Walls;
+
+//
+// Junction and corridor graph
+public class JunctionGraph {
+
+    private static final Walls DIRS[] = {Walls.North, Walls.East, Walls.South, Walls.West};
+    private static final int UNSET = Integer.MIN_VALUE;
+
+    private final Maze maze;
+
+    // Node, or run position, of each square.  A node is held as -(node + 1),
+    //  a corridor square as its position in runs[]
+    private final int cellSlot[];
+
+    // Nodes
+    private int nodeCount = 0;
+    private int nodeCell[] = new int[16];  // square of each node
+    private int adjStart[];  // edges of node n are adjEdge[adjStart[n]] to adjEdge[adjStart[n + 1] - 1]
+    private int adjEdge[];
+
+    // Edges
+    private int edgeCount = 0;
+    private int edgeFrom[] = new int[16];
+    private int edgeTo[] = new int[16];
+    private int edgeRunStart[] = new int[17];  // run of edge e is runs[edgeRunStart[e]] to runs[edgeRunStart[e + 1] - 1]
+
+    // Corridor squares of every edge, in order from the edge's first node
+    private int runs[] = new int[16];
+    private int runCount = 0;
+
+    // Search working state, only the nodes touched are reset after a search
+    private int dist[];
+    private int parentEdge[];  // edge used to reach each node, FROM_START if reached from the start square
+    private int touched[];
+    private int touchedCount = 0;
+    private long heap[] = new long[16];  // binary heap of (distance << 32 | node)
+    private int heapSize = 0;
+    private int settled = 0;
+
+    private static final int FROM_START = -1;
+    private static final int UNREACHED = -2;
+
+    // Constructor - build the graph from the maze map
+    public JunctionGraph(Maze maze) {
+        this.maze = maze;
+        int cells = maze.getWidth() * maze.getHeight();
+        cellSlot = new int[cells];
+        Arrays.fill(cellSlot, UNSET);
+
+        // Every square which is not a corridor is a node
+        for (int cell = 0; cell < cells; cell++) {
+            if (Openings(cell) != 2) {
+                AddNode(cell);
+            }
+        }
+
+        // Follow every corridor leading from each node
+        for (int node = 0; node < nodeCount; node++) {
+            TraceEdges(node);
+        }
+
+        // Any corridor squares left are on loops without a junction, make
+        //  one square of each loop a node
+        for (int cell = 0; cell < cells; cell++) {
+            if (cellSlot[cell] == UNSET) {
+                TraceEdges(AddNode(cell));
+            }
+        }
+
+        BuildAdjacency();
+
+        dist = new int[nodeCount];
+        parentEdge = new int[nodeCount];
+        touched = new int[nodeCount];
+        Arrays.fill(dist, Integer.MAX_VALUE);
+        Arrays.fill(parentEdge, UNREACHED);
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    public int getEdgeCount() {
+        return edgeCount;
+    }
+
+    // Number of nodes the last search settled
+    public int getSettled() {
+        return settled;
+    }
+
+    // Square of a node
+    public int getNodeCell(int node) {
+        return nodeCell[node];
+    }
+
+    // Node at a square, -1 if it is a corridor square
+    public int NodeAt(int cell) {
+        return (cellSlot[cell] < 0) ? -cellSlot[cell] - 1 : -1;
+    }
+
+    // Number of moves along an edge, from one end node to the other
+    public int EdgeLength(int edge) {
+        return edgeRunStart[edge + 1] - edgeRunStart[edge] + 1;
+    }
+
+    // Number of moves between two squares, -1 if there is no path.  The path
+    //  is not expanded.
+    public int Distance(int from, int to) {
+        int found = Search(from, to);
+        Reset();
+        return found;
+    }
+
+    // Find the path between two squares.  Returns the square indexes from the
+    //  start to the target inclusive, or null if there is no path.
+    public int[] Solve(int from, int to) {
+        int length = Search(from, to);
+        int path[] = (length < 0) ? null : Expand(from, to, length);
+        Reset();
+        return path;
+    }
+
+    // Bytes used by the graph for each node
+    public static int BytesPerNode() {
+        // nodeCell, adjStart, and the search's dist, parentEdge and touched
+        return 5 * Integer.BYTES;
+    }
+
+    // Bytes used by the graph for each edge (not counting its run)
+    public static int BytesPerEdge() {
+        // edgeFrom, edgeTo, edgeRunStart and two adjEdge entries
+        return 5 * Integer.BYTES;
+    }
+
+    // Total bytes used by the graph
+    public long BytesUsed() {
+        return (long) nodeCount * BytesPerNode() + (long) edgeCount * BytesPerEdge()
+                + (long) runCount * Integer.BYTES + (long) cellSlot.length * Integer.BYTES
+                + (long) heap.length * Long.BYTES;
+    }
+
+    // Describe the size of the graph and the memory it uses
+    public String MemoryReport() {
+        int cells = cellSlot.length;
+        return String.format("%d cells -> %d nodes (%d bytes/node), %d edges (%d bytes/edge), "
+                + "%d corridor squares (%d bytes/square), square index %d bytes, %.1f cells/node, %d bytes total",
+                cells, nodeCount, BytesPerNode(), edgeCount, BytesPerEdge(), runCount, Integer.BYTES,
+                (long) cells * Integer.BYTES, (nodeCount == 0) ? 0.0 : (double) cells / nodeCount, BytesUsed());
+    }
+
+    // Count the open sides of a square which lead to another square
+    private int Openings(int cell) {
+        int count = 0;
+        for (Walls dir : DIRS) {
+            if (maze.Step(cell, dir) >= 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // Make a square a node
+    private int AddNode(int cell) {
+        if (nodeCount == nodeCell.length) {
+            nodeCell = Arrays.copyOf(nodeCell, nodeCount * 2);
+        }
+        nodeCell[nodeCount] = cell;
+        cellSlot[cell] = -(nodeCount + 1);
+        return nodeCount++;
+    }
+
+    // Follow each corridor out of a node to the node at its other end,
+    //  adding an edge for each one not already found from the other end
+    private void TraceEdges(int node) {
+        int start = nodeCell[node];
+        for (Walls dir : DIRS) {
+            int cell = maze.Step(start, dir);
+            if (cell < 0 || cell == start) {
+                continue;
+            }
+            if (cellSlot[cell] >= 0) {
+                continue;  // corridor already traced from its other end
+            }
+            if (cellSlot[cell] != UNSET) {
+                // neighbouring nodes, add the edge once only
+                int other = -cellSlot[cell] - 1;
+                if (other > node) {
+                    AddEdge(node, other);
+                }
+                continue;
+            }
+
+            // Walk along the corridor, leaving each square by the opening
+            //  we did not come in by
+            Walls came = dir;
+            while (cellSlot[cell] == UNSET) {
+                AddRun(cell);
+                for (Walls out : DIRS) {
+                    if (out != came.Opposite() && maze.Step(cell, out) >= 0) {
+                        came = out;
+                        break;
+                    }
+                }
+                cell = maze.Step(cell, came);
+            }
+            AddEdge(node, -cellSlot[cell] - 1);
+        }
+    }
+
+    // Add a square to the run of the edge being traced
+    private void AddRun(int cell) {
+        if (runCount == runs.length) {
+            runs = Arrays.copyOf(runs, runCount * 2);
+        }
+        cellSlot[cell] = runCount;
+        runs[runCount++] = cell;
+    }
+
+    // Add an edge, its run being the squares added since the last edge
+    private void AddEdge(int from, int to) {
+        if (edgeCount == edgeFrom.length) {
+            edgeFrom = Arrays.copyOf(edgeFrom, edgeCount * 2);
+            edgeTo = Arrays.copyOf(edgeTo, edgeCount * 2);
+            edgeRunStart = Arrays.copyOf(edgeRunStart, edgeCount * 2 + 1);
+        }
+        edgeFrom[edgeCount] = from;
+        edgeTo[edgeCount] = to;
+        edgeRunStart[++edgeCount] = runCount;
+    }
+
+    // Build the lists of edges at each node
+    private void BuildAdjacency() {
+        adjStart = new int[nodeCount + 1];
+        for (int e = 0; e < edgeCount; e++) {
+            adjStart[edgeFrom[e] + 1]++;
+            adjStart[edgeTo[e] + 1]++;
+        }
+        for (int n = 0; n < nodeCount; n++) {
+            adjStart[n + 1] += adjStart[n];
+        }
+        adjEdge = new int[2 * edgeCount];
+        int fill[] = Arrays.copyOf(adjStart, nodeCount);
+        for (int e = 0; e < edgeCount; e++) {
+            adjEdge[fill[edgeFrom[e]]++] = e;
+            adjEdge[fill[edgeTo[e]]++] = e;
+        }
+    }
+
+    // Edge a corridor square is on (binary search of the run starts)
+    private int EdgeOf(int slot) {
+        int lo = 0;
+        int hi = edgeCount - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (edgeRunStart[mid] <= slot) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return lo;
+    }
+
+    // Shortest distance from one square to another (Dijkstra over the nodes,
+    //  starting from the ends of the start square's corridor), -1 if none
+    private int Search(int from, int to) {
+        settled = 0;
+        int best = Integer.MAX_VALUE;
+
+        // Start from the start square's node, or both ends of its corridor
+        int fromSlot = cellSlot[from];
+        int fromEdge = -1;
+        if (fromSlot < 0) {
+            Relax(-fromSlot - 1, 0, FROM_START);
+        } else {
+            fromEdge = EdgeOf(fromSlot);
+            int pos = fromSlot - edgeRunStart[fromEdge];
+            Relax(edgeFrom[fromEdge], pos + 1, FROM_START);
+            Relax(edgeTo[fromEdge], EdgeLength(fromEdge) - pos - 1, FROM_START);
+        }
+
+        // The target is its node, or reached from either end of its corridor
+        int toSlot = cellSlot[to];
+        int toNode = (toSlot < 0) ? -toSlot - 1 : -1;
+        int toEdge = (toSlot < 0) ? -1 : EdgeOf(toSlot);
+        int toPos = (toSlot < 0) ? 0 : toSlot - edgeRunStart[toEdge];
+
+        if (toEdge >= 0 && toEdge == fromEdge) {
+            // both on the same corridor, it may be shortest to walk along it
+            best = Math.abs(toSlot - fromSlot);
+        }
+
+        while (heapSize > 0) {
+            long item = HeapPop();
+            int node = (int) item;
+            int d = (int) (item >>> 32);
+            if (d != dist[node]) {
+                continue;  // out of date entry
+            }
+            if (d >= best) {
+                break;
+            }
+            settled++;
+
+            if (node == toNode) {
+                best = d;
+                break;
+            }
+            if (toEdge >= 0) {
+                if (node == edgeFrom[toEdge]) {
+                    best = Math.min(best, d + toPos + 1);
+                }
+                if (node == edgeTo[toEdge]) {
+                    best = Math.min(best, d + EdgeLength(toEdge) - toPos - 1);
+                }
+            }
+
+            for (int i = adjStart[node]; i < adjStart[node + 1]; i++) {
+                int edge = adjEdge[i];
+                int other = (edgeFrom[edge] == node) ? edgeTo[edge] : edgeFrom[edge];
+                Relax(other, d + EdgeLength(edge), edge);
+            }
+        }
+        return (best == Integer.MAX_VALUE) ? -1 : best;
+    }
+
+    // Record a shorter distance to a node
+    private void Relax(int node, int d, int edge) {
+        if (d >= dist[node]) {
+            return;
+        }
+        if (parentEdge[node] == UNREACHED) {
+            touched[touchedCount++] = node;
+        }
+        dist[node] = d;
+        parentEdge[node] = edge;
+        HeapPush(((long) d << 32) | node);
+    }
+
+    // Clear the nodes used by the last search
+    private void Reset() {
+        for (int i = 0; i < touchedCount; i++) {
+            dist[touched[i]] = Integer.MAX_VALUE;
+            parentEdge[touched[i]] = UNREACHED;
+        }
+        touchedCount = 0;
+        heapSize = 0;
+    }
+
+    // Expand the shortest path found by the last search into squares
+    private int[] Expand(int from, int to, int length) {
+        int path[] = new int[length + 1];
+        int fromSlot = cellSlot[from];
+        int toSlot = cellSlot[to];
+
+        // Straight along a shared corridor
+        if (fromSlot >= 0 && toSlot >= 0 && Math.abs(toSlot - fromSlot) == length
+                && EdgeOf(fromSlot) == EdgeOf(toSlot)) {
+            int step = (toSlot > fromSlot) ? 1 : -1;
+            for (int i = 0; i <= length; i++) {
+                path[i] = runs[fromSlot + i * step];
+            }
+            return path;
+        }
+
+        // Work back from the target.  Find the node the path arrives through
+        int end = length;
+        int node;
+        if (toSlot < 0) {
+            node = -toSlot - 1;
+        } else {
+            int edge = EdgeOf(toSlot);
+            int pos = toSlot - edgeRunStart[edge];
+            boolean viaFrom = dist[edgeFrom[edge]] != Integer.MAX_VALUE
+                    && dist[edgeFrom[edge]] + pos + 1 == length;
+            node = viaFrom ? edgeFrom[edge] : edgeTo[edge];
+            // squares from the target back along the corridor to the node
+            int step = viaFrom ? -1 : 1;
+            for (int slot = toSlot; slot >= edgeRunStart[edge] && slot < edgeRunStart[edge + 1]; slot += step) {
+                path[end--] = runs[slot];
+            }
+        }
+
+        // Follow the edges back to the start
+        while (parentEdge[node] != FROM_START) {
+            int edge = parentEdge[node];
+            path[end--] = nodeCell[node];
+            int first = edgeRunStart[edge];
+            int last = edgeRunStart[edge + 1] - 1;
+            if (edgeTo[edge] == node) {
+                for (int slot = last; slot >= first; slot--) {
+                    path[end--] = runs[slot];
+                }
+                node = edgeFrom[edge];
+            } else {
+                for (int slot = first; slot <= last; slot++) {
+                    path[end--] = runs[slot];
+                }
+                node = edgeTo[edge];
+            }
+        }
+        path[end--] = nodeCell[node];
+
+        // Squares from the first node back along the corridor to the start
+        if (fromSlot >= 0) {
+            int edge = EdgeOf(fromSlot);
+            int step;
+            if (edgeFrom[edge] != edgeTo[edge]) {
+                step = (node == edgeFrom[edge]) ? 1 : -1;
+            } else {
+                // a loop, both ends are the same node
+                step = (dist[node] == fromSlot - edgeRunStart[edge] + 1) ? 1 : -1;
+            }
+            for (int slot = (step > 0) ? edgeRunStart[edge] : edgeRunStart[edge + 1] - 1; end >= 0; slot += step) {
+                path[end--] = runs[slot];
+            }
+        }
+        return path;
+    }
+
+    // Add a node to the open list
+    private void HeapPush(long item) {
+        if (heapSize == heap.length) {
+            heap = Arrays.copyOf(heap, heap.length * 2);
+        }
+        int i = heapSize++;
+        while (i > 0) {
+            int up = (i - 1) >> 1;
+            if (heap[up] <= item) {
+                break;
+            }
+            heap[i] = heap[up];
+            i = up;
+        }
+        heap[i] = item;
+    }
+
+    // Remove the node with the lowest distance from the open list
+    private long HeapPop() {
+        long top = heap[0];
+        long item = heap[--heapSize];
+        int i = 0;
+        int half = heapSize >> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < heapSize && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (item <= heap[child]) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        if (heapSize > 0) {
+            heap[i] = item;
+        }
+        return top;
+    }
+}
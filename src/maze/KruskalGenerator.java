@@ -0,0 +1,99 @@
+//
+// KruskalGenerator.java
+// Generates a maze using randomised Kruskal's algorithm.
+//
+//  Every internal wall is listed once and shuffled, then walls are broken
+//    in that order whenever the squares on either side are not yet
+//    connected.  Connection is tracked with a union-find held in a single
+//    int array.  Uses about 12 bytes per square, no recursion and very
+//    little work per wall, so it is one of the faster generators.
+//
+package maze;
+
+import java.util.Arrays;
+import java.util.Random;
+import maze.Maze.Walls;
+
+//
+// Kruskal generator
+public class KruskalGenerator implements MazeGenerator {
+
+    private long workingBytes = 0;
+
+    @Override
+    public Algorithm getAlgorithm() {
+        return Algorithm.Kruskal;
+    }
+
+    @Override
+    public void Generate(Maze maze, Random rand) {
+        int cells = maze.getWidth() * maze.getHeight();
+
+        // List the walls, each as (square * 2) for the East wall or
+        //  (square * 2 + 1) for the South wall
+        int walls[] = new int[cells * 2];
+        int count = 0;
+        for (int cell = 0; cell < cells; cell++) {
+            if (maze.Neighbour(cell, Walls.East) >= 0) {
+                walls[count++] = cell * 2;
+            }
+            if (maze.Neighbour(cell, Walls.South) >= 0) {
+                walls[count++] = cell * 2 + 1;
+            }
+        }
+
+        // Shuffle the walls
+        for (int i = count - 1; i > 0; i--) {
+            int j = rand.nextInt(i + 1);
+            int tmp = walls[i];
+            walls[i] = walls[j];
+            walls[j] = tmp;
+        }
+
+        // Each square starts as its own set, a negative value is a set root
+        //  holding the set size
+        int sets[] = new int[cells];
+        Arrays.fill(sets, -1);
+
+        // Break walls between unconnected squares, until all are connected
+        int joined = 1;
+        for (int i = 0; i < count && joined < cells; i++) {
+            int cell = walls[i] >> 1;
+            Walls wall = ((walls[i] & 1) == 0) ? Walls.East : Walls.South;
+            int a = Find(sets, cell);
+            int b = Find(sets, maze.Neighbour(cell, wall));
+
+            if (a != b) {
+                // join the smaller set to the larger
+                if (sets[a] > sets[b]) {
+                    int tmp = a;
+                    a = b;
+                    b = tmp;
+                }
+                sets[a] += sets[b];
+                sets[b] = a;
+                maze.Carve(cell, wall);
+                joined++;
+            }
+        }
+
+        workingBytes = (long) walls.length * Integer.BYTES + (long) sets.length * Integer.BYTES;
+    }
+
+    // Find the root of the set holding a square, halving the path as we go
+    private static int Find(int sets[], int cell) {
+        while (sets[cell] >= 0) {
+            int up = sets[cell];
+            if (sets[up] >= 0) {
+                sets[cell] = sets[up];
+            }
+            cell = up;
+        }
+        return cell;
+    }
+
+    @Override
+    public long getWorkingBytes() {
+        return workingBytes;
+    }
+}
@@ -4,19 +4,21 @@
 //
 //  This currently supports rectangular and circular mazes.  A circular maze
 //    is essentially a a rectangular maze which has been stretched and wrapped,
-//    ao that far east and far west walls are the same.
+//    ao that far east and far west walls are the same.  How the squares are
+//    joined is given by a Topology, which can also join the north and south
+//    edges (a torus).
 //
 package maze;
 
 import java.awt.Point;
-import java.util.ArrayList;
 import java.util.EnumSet;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 import java.util.Random;
 
 //
 // Main maze class
-public class Maze implements Iterable<Point> {
+public class Maze implements Iterable<Point>, AutoCloseable {
 
     private int width;  // width and height of maze
     private int height;
@@ -24,23 +26,87 @@ public class Maze implements Iterable<Point> {
     private int exit;
     private int xpos = 0;  // current position (when traversing 3D maze)
     private int ypos = 0;
-    private EnumSet<Walls> mazemap[][];  // The map pf the maze
+    private CellStore mazemap;  // The map of the maze, one packed cell per square (row-major)
     private boolean bMapCreated;
-    private boolean bMapCircular = false;  // is maze circular
+    private long mapVersion = 0;  // changed each time a new map is started or loaded
+    private Topology topology = Topology.RECTANGULAR;  // how the squares are joined
+    private int neighbours[] = null;  // neighbour of each square in each direction, null if not held
+    private Topology neighbourTopology = null;  // topology and size the neighbours were worked out for
+    private int neighbourWidth = 0;
+    private int neighbourHeight = 0;
+    private long sealed[] = new long[4];  // (cell * 4 + direction) of the links cut for the entrance and exit
+    private int sealedCount = 0;
+    private boolean bOffHeap = false;  // hold the map outside the java heap
     private final Random rand;
-    private ArrayList<Point> solution = null;  // solution details as a array of map square co-ordinates
-    private ArrayList<Point> solution3D = null;
-
-    // Iterator for the full solution of the maze (actually goes exit to entrance)
+    private final long seed;  // seed of the random number generator
+    private MazeGenerator generator = new BacktrackerGenerator();  // algorithm used to create the map
+    private MazeSolver solver = null;
+    private MazeSolver.Method solveMethod = MazeSolver.Method.BFS;
+    private SolutionPath solution = null;  // solution as map square indexes, from exit to entrance
+    private DistanceField exitField = null;  // distance from each square to the exit square
+    private JunctionGraph junctions = null;  // junctions and the corridors between them
+    private PathIndex paths = null;  // tree index for path queries between any two squares
+
+    private static final Walls WALL_DIRS[] = {Walls.North, Walls.East, Walls.South, Walls.West};
+
+    // Largest map the neighbour table is held for (16 bytes a square), larger
+    //  maps work out each neighbour as it is needed
+    private static final int MAX_NEIGHBOUR_CELLS = 1 << 22;
+
+    // Approximate heap cost of a cell when the map was an EnumSet<Walls>[][]
+    //  (32 byte RegularEnumSet object plus a 4 byte array reference)
+    public static final int ENUMSET_BYTES_PER_CELL = 36;
+
+    // Iterator for the full solution of the maze (actually goes exit to entrance).
+    //  Creates a Point for each square, VisitSolution does not.
     @Override
     public Iterator<Point> iterator() {
-        return (solution.iterator());
+        return PointIterator(GetSolution());
+    }
+
+    // Visit each step of the full solution (exit to entrance)
+    public void VisitSolution(SolutionPath.StepVisitor visitor) {
+        GetSolution().ForEachStep(visitor);
+    }
+
+    // Visit each step of the way out from the current position, used in
+    //  the 3D view.  Starts at the next square to move to (the entrance if
+    //  outside the maze) and ends at the exit.
+    public void VisitSolution3D(SolutionPath.StepVisitor visitor) {
+        if (Completed()) {
+            return;
+        }
+        DistanceField field = GetExitField();
+        int cell = AtStart() ? CellIndex(xpos, height - 1) : field.NextCell(CellIndex(xpos, ypos));
+        if (cell < 0) {
+            return;
+        }
+        for (int next = field.NextCell(cell); next >= 0; next = field.NextCell(cell)) {
+            visitor.Step(cell % width, cell / width, next % width, next / width);
+            cell = next;
+        }
     }
 
-    // Iterator for the solution from the current position of the maze 
-    //  (actually goes exit to entrance), used in the 3D view.
-    public Iterator<Point> iterator3D() {
-        return (solution3D.iterator());
+    // Iterate the squares of a path as Points
+    private static Iterator<Point> PointIterator(SolutionPath path) {
+        return new Iterator<Point>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < path.size();
+            }
+
+            @Override
+            public Point next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Point p = new Point(path.getX(next), path.getY(next));
+                next++;
+                return p;
+            }
+        };
     }
 
     public enum Navigate {
@@ -59,10 +125,18 @@ public class Maze implements Iterable<Point> {
         South,
         West,
         Available, // used for creating the map
-        SolveAvail;     // used for solving map  
+        SolveAvail;     // no longer used, MazeSolver keeps its own state
 
         public static final EnumSet<Walls> ALL = EnumSet.allOf(Walls.class);
 
+        // Bits of all the values, used as the initial state of a packed cell
+        public static final int ALL_BITS = (1 << values().length) - 1;
+
+        // The bit used for this value in a packed cell
+        public int Bit() {
+            return 1 << ordinal();
+        }
+
         // Given a direction, returns the way you will be facing if you turn left
         public Walls TurnLeft() {
             return values()[(ordinal() + 3) % 4];
@@ -81,6 +155,11 @@ public class Maze implements Iterable<Point> {
             return values()[(ordinal() + (ordinal() % 2) * 2) % 4];
         }
 
+        // Given a direction, returns the opposite direction
+        public Walls Opposite() {
+            return values()[(ordinal() + 2) % 4];
+        }
+
         public int TurnTo(Walls target) {
             return (((ordinal() - target.ordinal()) + 4) % 4);
         }
@@ -98,54 +177,105 @@ public class Maze implements Iterable<Point> {
 
     // move the current position in the specified direction
     public boolean Move(Walls wall) {
-        int prevx = xpos;
-        int prevy = ypos;
+        if (!MazeStats.isRecording()) {
+            return MoveStep(wall);
+        }
+        long start = System.nanoTime();
+        boolean moved = MoveStep(wall);
+        MazeStats.RecordMove(System.nanoTime() - start);
+        return moved;
+    }
 
+    // move the current position, if there is no wall in the way
+    private boolean MoveStep(Walls wall) {
         // if at entrance can always move
         if (ypos == height && wall == Walls.North) {
-            solution3D.remove(solution3D.size() - 1);
             ypos--;
             return true;
-        } else if (ypos < 0) {  // exited maze, cannot move
+        } else if (ypos < 0 || ypos == height) {  // exited maze, cannot move
             return false;
-        } else if (mazemap[xpos][ypos].contains(wall)) { // bashed into a wall
-            return (false);
         }
 
-        // Determine direction, and change position
-        switch (wall) {
-            case North:
-                ypos--;
-                break;
-            case South:
-                ypos++;
-                break;
-            case East:
-                xpos = (xpos + 1) % width;
-                break;
-            case West:
-                xpos = (xpos + width - 1) % width;
-                break;
-        }
-
-        // Remove the point from the solution, if the player moved onto the 
-        //  correct point (closer to the exit) or add the point of the player
-        //  went the wrong way (away from the exit)
-        if (solution3D.isEmpty()) {
-            solution3D.add(new Point(prevx, prevy));
-        }
-        Point end = solution3D.get(solution3D.size() - 1);
-        if (end.x == xpos && end.y == ypos) {
-            solution3D.remove(solution3D.size() - 1);
-        } else {
-            solution3D.add(new Point(prevx, prevy));
+        int next = Step(CellIndex(xpos, ypos), wall);
+        if (next >= 0) {
+            xpos = next % width;
+            ypos = next / width;
+            return true;
+        } else if (IsWall(xpos, ypos, wall)) { // bashed into a wall
+            return (false);
         }
+
+        // No wall and no square, out through the exit or back out of the entrance
+        ypos = (wall == Walls.North) ? -1 : height;
         return true;
     }
 
     // Set whether maze circular
     public void SetCircular(boolean bCirc) {
-        bMapCircular = bCirc;
+        setTopology(bCirc ? Topology.CIRCULAR : Topology.RECTANGULAR);
+    }
+
+    // Get how the squares of the map are joined
+    public Topology getTopology() {
+        return topology;
+    }
+
+    // Set how the squares of the map are joined, used for the next maze
+    //  created.  Only topologies with four directions fit the maze map
+    public void setTopology(Topology t) {
+        if (t.getDirections() != WALL_DIRS.length) {
+            throw new IllegalArgumentException("A maze square has four walls, the " + t.getName()
+                    + " topology has " + t.getDirections() + " directions");
+        }
+        topology = t;
+        BuildNeighbours();
+    }
+
+    // Work out the neighbour table for the size and topology of the map, if
+    //  they have changed, and put back any links cut for the last entrance
+    //  and exit.  No table is held for a very large or off-heap map
+    private void BuildNeighbours() {
+        if (neighbourTopology == topology && neighbourWidth == width && neighbourHeight == height) {
+            if (neighbours != null) {
+                for (int i = 0; i < sealedCount; i++) {
+                    int cell = (int) (sealed[i] >> 2);
+                    neighbours[(int) sealed[i]] = topology.Neighbour(cell, (int) (sealed[i] & 3), width, height);
+                }
+            }
+        } else {
+            long cells = (long) width * height;
+            neighbours = (!bOffHeap && cells <= MAX_NEIGHBOUR_CELLS) ? topology.NeighbourTable(width, height) : null;
+            neighbourTopology = topology;
+            neighbourWidth = width;
+            neighbourHeight = height;
+        }
+        sealedCount = 0;
+    }
+
+    // Cut the link through a wall of a square, both ways, so the wall leads
+    //  off the map
+    private void Seal(int cell, Walls wall) {
+        int next = Neighbour(cell, wall);
+        if (next < 0) {
+            return;
+        }
+        sealed[sealedCount++] = ((long) cell << 2) + wall.ordinal();
+        sealed[sealedCount++] = ((long) next << 2) + wall.Opposite().ordinal();
+        if (neighbours != null) {
+            neighbours[(cell << 2) + wall.ordinal()] = Topology.OFF_MAP;
+            neighbours[(next << 2) + wall.Opposite().ordinal()] = Topology.OFF_MAP;
+        }
+    }
+
+    // On a map with no north or south edge, cut the links through the exit
+    //  and entrance walls so they still lead out of the maze
+    private void CutOpenings() {
+        if (!topology.HasEdge(Walls.North.ordinal())) {
+            Seal(CellIndex(exit, 0), Walls.North);
+        }
+        if (!topology.HasEdge(Walls.South.ordinal())) {
+            Seal(CellIndex(entrance, height - 1), Walls.South);
+        }
     }
 
     // set the maze size
@@ -163,51 +293,41 @@ public class Maze implements Iterable<Point> {
     //  The creation works by having all walls sets, then creating a path
     //  by breaking the walls
     private void ClearMap() {
-        mazemap = new EnumSet[width][height];
-
-        for (int i = 0; i < width; i++) {
-            for (int j = 0; j < height; j++) {
-                mazemap[i][j] = EnumSet.copyOf(Walls.ALL);
-            }
-        }
+        // Re-use the existing store if the size and kind have not changed
+        if (mazemap == null || mazemap.size() != width * height
+                || mazemap.getClass() != (bOffHeap ? DirectCellStore.class : HeapCellStore.class)) {
+            close();
+            mazemap = bOffHeap ? new DirectCellStore(width * height) : new HeapCellStore(width * height);
+        }
+        mazemap.Fill(Walls.ALL_BITS);
+        BuildNeighbours();
+        mapVersion++;
     }
 
-    // Is a particular square available when creating a maze
-    //  an available square is one which is not yet connected to the maze
-    private boolean Available(int x, int y) {
-        if (x < 0 || x >= width) {
-            if (bMapCircular) {
-                x = (x < 0) ? width - 1 : 0;
-            } else {
-                return (false);
-            }
-        }
-        if (y < 0 || y >= height) {
-            return (false);
-        }
+    // Clear the map ready for a generator, without drawing any random numbers
+    void ClearMap(boolean circular) {
+        ClearMap(circular ? Topology.CIRCULAR : Topology.RECTANGULAR);
+    }
 
-        return (mazemap[x][y].contains(Walls.Available));
+    // Clear the map with a given topology
+    void ClearMap(Topology t) {
+        setTopology(t);
+        ClearMap();
     }
 
-    // When creating the maze count the number of directions that are available
-    //  to add the the maze (North, South, East, West)
-    private int CountDirs(int x, int y) {
-        int count = 0;
+    // Get the index of a square in the packed map
+    int CellIndex(int x, int y) {
+        return y * width + x;
+    }
 
-        if (Available(x - 1, y)) {
-            count++;
-        }
-        if (Available(x, y - 1)) {
-            count++;
-        }
-        if (Available(x + 1, y)) {
-            count++;
-        }
-        if (Available(x, y + 1)) {
-            count++;
-        }
+    // Get the packed bits of a square
+    int GetCell(int cell) {
+        return mazemap.Get(cell);
+    }
 
-        return (count);
+    // Replace the packed bits of a square
+    void SetCell(int cell, int bits) {
+        mazemap.Set(cell, bits);
     }
 
     // Work out the direction you must go to face the next solution point
@@ -215,32 +335,13 @@ public class Maze implements Iterable<Point> {
     public Navigate GetNextSolutionPoint(Walls direction) {
         if (AtStart()) {
             return Navigate.Forward;
-        } else if (solution3D.isEmpty()) {
+        } else if (Completed() || CellIndex(xpos, ypos) == GetExitField().getTarget()) {
             return Navigate.Reached;
         }
-        Point end = solution3D.get(solution3D.size() - 1);
-
-        int xdiff = end.x - xpos;
-        int ydiff = end.y - ypos;
-
-        Walls target = Walls.East;
-
-        if (xdiff != 0) {
-            if (xdiff == 1 || xdiff < -1) {
-                target = Walls.East;
-
-            } else {
-                target = Walls.West;
-            }
-
-        } else if (ydiff != 0) {
-            if (ydiff == 1 || ydiff < -1) {
-                target = Walls.South;
-
-            } else {
-                target = Walls.North;
-            }
 
+        Walls target = GetExitField().NextStep(CellIndex(xpos, ypos));
+        if (target == null) {
+            return Navigate.Lost;
         }
 
         // If circular direction are inverted bcause the maze is drawn
@@ -264,204 +365,161 @@ public class Maze implements Iterable<Point> {
         }
     }
 
-    // When creating the maze get the nth available direction
-    private Walls GetDirection(int x, int y, int item) {
-        int count = -1;
-
-        if (Available(x - 1, y)) {
-            if (++count == item) {
-                return (Walls.West);
-            }
-        }
-        if (Available(x, y - 1)) {
-            if (++count == item) {
-                return (Walls.North);
-            }
-        }
-        if (Available(x + 1, y)) {
-            if (++count == item) {
-                return (Walls.East);
-            }
-        }
-        if (Available(x, y + 1)) {
-            if (++count == item) {
-                return (Walls.South);
-            }
-        }
-        // Should not get here but if we do this will remove the square from the list
-        return (Walls.Available);
+    // break down a wall in the maze to create a path
+    private int BreakWall(int x, int y, Walls wall) {
+        return Carve(CellIndex(x, y), wall);
     }
 
-    // randomly select a direction to break the wall
-    private Walls SelectWall(int x, int y) {
-        // Get the number of directions we can go
-        int count = CountDirs(x, y);
+    // Break down a wall of a square, and the opposite wall of the square on the
+    //  other side so the path is clear both ways, marking that square as
+    //  included in the maze.  Returns the square opened up, or -1 if the wall
+    //  was on the edge of the map (the entrance or exit)
+    int Carve(int cell, Walls wall) {
+        mazemap.Remove(cell, wall.Bit());
 
-        // If we cannot move on the path, tell the caller
-        if (count == 0) {
-            return Walls.Available;
+        int next = Neighbour(cell, wall);
+        if (next >= 0) {
+            mazemap.Remove(next, wall.Opposite().Bit() | Walls.Available.Bit());
         }
-        // Pick and return one of the available directions
-        int item = rand.nextInt(count);
+        return next;
+    }
+
+    // Is a particular square available when creating a maze
+    //  an available square is one which is not yet connected to the maze
+    boolean IsAvailable(int cell) {
+        return mazemap.Contains(cell, Walls.Available.Bit());
+    }
 
-        return (GetDirection(x, y, item));
+    // Mark a square as connected to the maze
+    void MarkUsed(int cell) {
+        mazemap.Remove(cell, Walls.Available.Bit());
     }
 
-    // break down a wall in the maze to create a path
-    private Point BreakWall(int x, int y, Walls wall) {
-        int x1 = x;
-        int y1 = y;
-        Walls Opposing = Walls.Available;
-
-        // Determine the square we are moving to and the corresponding wall 0n that square
-        switch (wall) {
-            case North:
-                y1--;
-                Opposing = Walls.South;
-                break;
-            case South:
-                y1++;
-                Opposing = Walls.North;
-                break;
-            case East:
-                x1++;
-                Opposing = Walls.West;
-                break;
-            case West:
-                x1--;
-                Opposing = Walls.East;
-                break;
-        }
-
-        // Remove the wall
-        mazemap[x][y].remove(wall);
-
-        // On a circular maze handle wrap around
-        if (x1 < 0 || x1 >= width) {
-            // Wrap around if circular
-            if (bMapCircular) {
-                x1 = (x1 < 0) ? width - 1 : 0;
+    // Pick a random direction from a square which stays on the map
+    Walls RandomDirection(int cell, Random rnd) {
+        while (true) {
+            Walls wall = WALL_DIRS[rnd.nextInt(4)];
+            if (Neighbour(cell, wall) >= 0) {
+                return wall;
             }
         }
+    }
 
-        // Break down the opposite wall of the square we are moving to 
-        //  so the path is clear both ways and mark the square as included
-        //  in the maze, so no longer available to be added to the maze.
-        if (x1 >= 0 && x1 < width && y1 >= 0 && y1 < height) {
-            mazemap[x1][y1].remove(Opposing);
-            mazemap[x1][y1].remove(Walls.Available);
+    // Get the square next to a square in a particular direction, wrapping
+    //  around as the topology joins the edges.  Returns -1 if off the map
+    int Neighbour(int cell, Walls wall) {
+        if (neighbours != null) {
+            return neighbours[(cell << 2) + wall.ordinal()];
         }
-
-        // return the point we have just open up by breaking down the wall
-        return (new Point(x1, y1));
+        if (sealedCount > 0 && IsSealed(cell, wall)) {
+            return Topology.OFF_MAP;
+        }
+        return topology.Neighbour(cell, wall.ordinal(), width, height);
     }
 
-    // Determine if a move from a specified point in a partilulsr direction
-    //  is possible, used in searching for a solution
-    private boolean CanMove(int x, int y, Walls wall) {
-
-        // cannot move, we've hit a wall
-        if (mazemap[x][y].contains(wall)) {
-            return false;
-        }
-        int x1 = x;
-        int y1 = y;
-
-        // Find out where we are moving to
-        switch (wall) {
-            case North:
-                y1--;
-                break;
-            case South:
-                y1++;
-                break;
-            case East:
-                x1++;
-                break;
-            case West:
-                x1--;
-                break;
-        }
-
-        // return false if we are not on the map
-        if (x1 < 0 || x1 >= width) {
-            // Wrap around if circular
-            if (bMapCircular) {
-                x1 = (x1 < 0) ? width - 1 : 0;
-            } else {
-                return (false);
+    // Has the link through a wall of a square been cut
+    private boolean IsSealed(int cell, Walls wall) {
+        long link = ((long) cell << 2) + wall.ordinal();
+        for (int i = 0; i < sealedCount; i++) {
+            if (sealed[i] == link) {
+                return true;
             }
         }
+        return false;
+    }
 
-        if (y1 < 0 || y1 >= height) {
-            return (false);
+    // Determine if a move from a square in a particular direction is possible,
+    //  returning the square moved to, or -1 if there is a wall or it is off the map
+    int Step(int cell, Walls wall) {
+        if (mazemap.Contains(cell, wall.Bit())) {
+            return -1;
         }
-        //return false of we have been on this square before, when seraching
-        //  for a solution, don't want to go over old ground
-        if (!mazemap[x1][y1].contains(Walls.SolveAvail)) {
-            return false;
-        }
-        return (true);
+        return Neighbour(cell, wall);
     }
 
+    // Find the solution between two squares, the solution is stored from 
+    //  the target back to the start
     boolean FindSolution(int fromx, int fromy, int tox, int toy) {
-        if (fromx < 0 || fromx >= width) {
-            // Wrap around if circular
-            fromx = (fromx < 0) ? width - 1 : 0;
+        if (solver == null) {
+            solver = new MazeSolver(this, solveMethod);
         }
+        MazeEvents.Solve event = new MazeEvents.Solve();
+        event.begin();
+        long start = MazeStats.isRecording() ? System.nanoTime() : 0;
 
-        // mark the current square as searched
-        mazemap[fromx][fromy].remove(Walls.SolveAvail);
+        int path[] = solver.Solve(fromx, fromy, tox, toy);
 
-        // Have we found the solution
-        if (fromx == tox && fromy == toy) {
-            solution.add(new Point(fromx, fromy));
-            return (true);
+        if (start != 0) {
+            MazeStats.RecordSolve(System.nanoTime() - start);
         }
-        //Check the 4 possible directions, recursely calling 
-        //  find solution on each one, until we have a solution
-        if (CanMove(fromx, fromy, Walls.North)) {
-            if (FindSolution(fromx, fromy - 1, tox, toy)) {
-                solution.add(new Point(fromx, fromy));
-                return (true);
-            }
-        }
-        if (CanMove(fromx, fromy, Walls.South)) {
-            if (FindSolution(fromx, fromy + 1, tox, toy)) {
-                solution.add(new Point(fromx, fromy));
-                return (true);
-            }
+        if (event.shouldCommit()) {
+            event.width = width;
+            event.height = height;
+            event.shape = MazeEvents.Shape(this);
+            event.method = solveMethod.name();
+            event.cellsVisited = solver.getVisited();
+            event.pathLength = (path == null) ? 0 : path.length;
+            event.commit();
         }
-        if (CanMove(fromx, fromy, Walls.East)) {
-            if (FindSolution(fromx + 1, fromy, tox, toy)) {
-                solution.add(new Point(fromx, fromy));
-                return (true);
-            }
+
+        if (path == null) {
+            solution = new SolutionPath(new int[0], width);
+            return (false);
         }
-        if (CanMove(fromx, fromy, Walls.West)) {
-            if (FindSolution(fromx - 1, fromy, tox, toy)) {
-                solution.add(new Point(fromx, fromy));
-                return (true);
-            }
+        // reverse in place, the solver gives the start first
+        for (int i = 0, j = path.length - 1; i < j; i++, j--) {
+            int cell = path[i];
+            path[i] = path[j];
+            path[j] = cell;
         }
-        // This is a dead end
-        return (false);
+        solution = new SolutionPath(path, width);
+        return (true);
+    }
+
+    // Get the algorithm used to create the map
+    public MazeGenerator getGenerator() {
+        return generator;
     }
 
-    // Create the map by repeatedly breaking down walls
-    private void Process(int x, int y) {
-        Walls w = SelectWall(x, y);
+    // Set the algorithm used to create the map
+    public void setGenerator(MazeGenerator gen) {
+        generator = gen;
+    }
 
-        while (w != Walls.Available) {
+    // Get the method used to find the solution
+    public MazeSolver.Method getSolveMethod() {
+        return solveMethod;
+    }
 
-            Point pt = BreakWall(x, y, w);
+    // Set the method used to find the solution
+    public void setSolveMethod(MazeSolver.Method method) {
+        solveMethod = method;
+        if (solver != null) {
+            solver.setMethod(method);
+        }
+    }
 
-            Process(pt.x, pt.y);
+    // Get the junction graph of the maze, building it if it has not been
+    //  built since the maze was created
+    public JunctionGraph getJunctionGraph() {
+        if (junctions == null) {
+            junctions = new JunctionGraph(this);
+        }
+        return junctions;
+    }
 
-            // Select an available direction
-            w = SelectWall(x, y);
+    // Get the path query index of the maze, building it if it has not been
+    //  built since the maze was created
+    public PathIndex getPathIndex() {
+        if (paths == null) {
+            paths = new PathIndex(this);
         }
+        return paths;
+    }
 
+    // Number of moves between two squares, -1 if there is no path
+    public int PathLength(int fromx, int fromy, int tox, int toy) {
+        return getPathIndex().Distance(CellIndex(fromx, fromy), CellIndex(tox, toy));
     }
 
     // Get the maze width
@@ -476,50 +534,181 @@ public class Maze implements Iterable<Point> {
 
     // determine if there is a wall at a point and direction.  Used in drawing the maze
     public boolean IsWall(int x, int y, Walls wall) {
-        return (mazemap[x][y].contains(wall));
+        return (mazemap.Contains(CellIndex(x, y), wall.Bit()));
+    }
+
+    // Hash of the walls of every square, used to check two mazes are the same
+    public long WallHash() {
+        int walls = Walls.North.Bit() | Walls.East.Bit() | Walls.South.Bit() | Walls.West.Bit();
+        long hash = 1125899906842597L;
+        int cells = width * height;
+        for (int i = 0; i < cells; i++) {
+            hash = 31 * hash + (mazemap.Get(i) & walls);
+        }
+        return hash;
+    }
+
+    // Number of bytes used to hold the maze map, with its neighbour table
+    public long getMapBytes() {
+        return ((mazemap == null) ? 0 : mazemap.BytesUsed()) + getNeighbourBytes();
+    }
+
+    // Number of bytes used by the neighbour table, 16 a square while held
+    public long getNeighbourBytes() {
+        return (neighbours == null) ? 0 : (long) neighbours.length * Integer.BYTES;
+    }
+
+    // Report the memory used per cell by the map and its neighbour table,
+    //  next to the approximate cost of the previous EnumSet<Walls>[][] map
+    public String MemoryReport() {
+        long cells = (long) width * height;
+        double perCell = (cells == 0) ? 0.0 : (double) getMapBytes() / cells;
+        return String.format("%d cells: %.2f bytes/cell packed (%d bytes, %d of them neighbours), "
+                + "%d bytes/cell as EnumSet (%d bytes)",
+                cells, perCell, getMapBytes(), getNeighbourBytes(), ENUMSET_BYTES_PER_CELL,
+                cells * ENUMSET_BYTES_PER_CELL);
     }
 
     //  Create a new maze
     public void CreateMaze(boolean circular) {
-        // Create a maze map
-        ClearMap();
+        CreateMaze(circular ? Topology.CIRCULAR : Topology.RECTANGULAR);
+    }
+
+    //  Create a new maze with a given topology
+    public void CreateMaze(Topology t) {
+        MazeEvents.CreateMaze event = new MazeEvents.CreateMaze();
+        event.begin();
+
+        Generate(t);
+
+        // find the solution to the maze we have created
+        FindSolution(entrance, height - 1, exit, 0);
+
+        if (event.shouldCommit()) {
+            event.width = width;
+            event.height = height;
+            event.shape = MazeEvents.Shape(this);
+            event.algorithm = generator.getAlgorithm().name();
+            event.cellsVisited = solver.getVisited();
+            event.commit();
+        }
+    }
+
+    // Create a new maze without solving it, returning how long the 
+    //  generation took and the memory it needed
+    public GenerationStats Generate(boolean circular) {
+        return Generate(circular ? Topology.CIRCULAR : Topology.RECTANGULAR);
+    }
+
+    // Create a new maze with a given topology without solving it
+    public GenerationStats Generate(Topology t) {
+        MazeEvents.Generate event = new MazeEvents.Generate();
+        event.begin();
+        long start = System.nanoTime();
+
+        // Create a maze map, the old solution and way out no longer apply
+        ClearMap(t);
+        solution = null;
+        exitField = null;
+        junctions = null;
+        paths = null;
+
+        // A map with no north and south edges has the entrance and exit
+        //  picked first, so no passage is carved through them
+        boolean edged = topology.HasEdge(Walls.North.ordinal()) && topology.HasEdge(Walls.South.ordinal());
+        if (!edged) {
+            entrance = rand.nextInt(width);
+            exit = rand.nextInt(width);
+            CutOpenings();
+        }
 
         // Create the maze
-        bMapCircular = circular;
-        GenerateMap();
+        generator.Generate(this, rand);
+        bMapCreated = true;
 
         // pick random entrance and exit points and break the entry and exit points
-        entrance = rand.nextInt(width);
-        exit = rand.nextInt(width);
+        if (edged) {
+            entrance = rand.nextInt(width);
+            exit = rand.nextInt(width);
+        }
 
         BreakWall(exit, 0, Walls.North);
         BreakWall(entrance, height - 1, Walls.South);
 
-        // find the solution to the maze we have created
-        solution = new ArrayList();
-        FindSolution(entrance, height - 1, exit, 0);
+        long nanos = System.nanoTime() - start;
+        MazeStats.RecordGeneration(nanos);
+        if (event.shouldCommit()) {
+            event.width = width;
+            event.height = height;
+            event.shape = MazeEvents.Shape(this);
+            event.algorithm = generator.getAlgorithm().name();
+            event.cellsVisited = (long) width * height;
+            event.workingBytes = generator.getWorkingBytes();
+            event.commit();
+        }
+        return new GenerationStats(generator.getAlgorithm(), width, height, nanos,
+                getMapBytes(), generator.getWorkingBytes(), generator.getPeakDepth());
     }
 
-    //  Start create the map
-    private void GenerateMap() {
-        // select a random start point
-        int x = rand.nextInt(width);
-        int y = rand.nextInt(height);
-        mazemap[x][y].remove(Walls.Available);
+    // reset the 3d solution line, when we are at the entrance of the maze.
+    //  The way out is found from every square once, so it is ready before
+    //  the player starts moving
+    public void ResetSolution() {
+        MazeEvents.ResetSolution event = new MazeEvents.ResetSolution();
+        event.begin();
+        boolean known = (exitField != null);
 
-        // Start creating the maze from that point
-        Process(x, y);
-        bMapCreated = true;
+        GetExitField();
+
+        if (event.shouldCommit()) {
+            event.width = width;
+            event.height = height;
+            event.shape = MazeEvents.Shape(this);
+            event.cellsVisited = known ? 0 : exitField.getReached();
+            event.commit();
+        }
     }
 
-    // reset the 3d solution line, when we are at the entrance of the maze
-    public void ResetSolution() {
-        solution3D = (ArrayList<Point>) solution.clone();
+    // Get the distance from every square to the exit, working it out if it
+    //  has not been yet
+    private DistanceField GetExitField() {
+        if (exitField == null) {
+            exitField = new DistanceField(this, CellIndex(exit, 0));
+        }
+        return exitField;
+    }
+
+    // Number of moves needed to leave the maze from a square, including the 
+    //  move through the exit, -1 if there is no way out
+    public int DistanceToExit(int x, int y) {
+        int distance = GetExitField().Distance(CellIndex(x, y));
+        return (distance < 0) ? -1 : distance + 1;
+    }
+
+    // Direction to move from a square to get out of the maze, null if there
+    //  is no way out
+    public Walls WayOut(int x, int y) {
+        int cell = CellIndex(x, y);
+        if (cell == GetExitField().getTarget()) {
+            return Walls.North;
+        }
+        return GetExitField().NextStep(cell);
+    }
+
+    // Number of moves needed to leave the maze from the current position
+    public int getDistanceToExit() {
+        if (Completed()) {
+            return 0;
+        } else if (AtStart()) {
+            int distance = DistanceToExit(xpos, height - 1);
+            return (distance < 0) ? -1 : distance + 1;
+        }
+        return DistanceToExit(xpos, ypos);
     }
 
     // Is the maze circular or rectangular
     public boolean isCircular() {
-        return bMapCircular;
+        return topology.isCircular();
     }
 
     // sets the current position
@@ -545,7 +734,128 @@ public class Maze implements Iterable<Point> {
 
     // Constructor - seed the random number generator
     public Maze() {
+        this(System.currentTimeMillis());
+    }
+
+    // Constructor - seed the random number generator with a given seed, so 
+    //  the same mazes are created each time
+    public Maze(long seed) {
+        bMapCreated = false;
+        this.seed = seed;
+        rand = new Random(seed);
+    }
+
+    // Make a copy of a created maze (map, solution, seed and settings) which
+    //  can be navigated independently of this one
+    public Maze Copy() {
+        Maze copy = new Maze(seed);
+        copy.solveMethod = solveMethod;
+        copy.bOffHeap = bOffHeap;
+        copy.Restore(width, height, topology, entrance, exit);
+        for (int i = 0; i < width * height; i++) {
+            copy.mazemap.Set(i, mazemap.Get(i));
+        }
+        copy.generator = generator;
+        copy.solution = solution;  // never changed once found, so can be shared
+        return copy;
+    }
+
+    // Set up an empty created maze of a given size, ready for its walls to 
+    //  be filled in (used when loading a maze)
+    void Restore(int w, int h, Topology t, int entrancePos, int exitPos) {
+        Restore(w, h, t, entrancePos, exitPos, null);
+    }
+
+    // Set up a created maze of a given size using an existing map, or an
+    //  empty map if store is null.  The solution is found when first needed
+    void Restore(int w, int h, Topology t, int entrancePos, int exitPos, CellStore store) {
+        setSize(w, h);
+        if (store == null) {
+            ClearMap(t);
+        } else {
+            mazemap = store;
+            setTopology(t);
+            mapVersion++;
+        }
+        entrance = entrancePos;
+        exit = exitPos;
+        CutOpenings();
+        solution = null;
+        exitField = null;
+        junctions = null;
+        paths = null;
+        bMapCreated = true;
+    }
+
+    // Get the solution, finding it if it has not been found yet
+    private SolutionPath GetSolution() {
+        if (solution == null) {
+            FindSolution(entrance, height - 1, exit, 0);
+        }
+        return solution;
+    }
+
+    // Get a number which changes whenever the map is replaced, so drawings
+    //  of the maze can tell when they are out of date
+    public long getMapVersion() {
+        return mapVersion;
+    }
+
+    // Get the seed used to create the maze
+    public long getSeed() {
+        return seed;
+    }
+
+    // Get the store holding the maze map
+    CellStore getStore() {
+        return mazemap;
+    }
+
+    // Set whether new maps are held outside the java heap, for mazes too
+    //  large for the heap.  Takes effect when the next maze is created.
+    //  The map and the solver's working state leave the heap, so a maze
+    //  can be solved in a small heap; the generators' working arrays stay
+    //  on it, up to 4 bytes a square (12 for Kruskal), as do the distance
+    //  field and the solution.
+    public void setOffHeap(boolean offHeap) {
+        bOffHeap = offHeap;
+    }
+
+    // Is the map held outside the java heap
+    public boolean isOffHeap() {
+        return bOffHeap;
+    }
+
+    // Free the maze map (needed to release an off-heap map straight away).
+    //  The maze must be created again before it is used.
+    @Override
+    public void close() {
+        if (mazemap != null) {
+            mazemap.close();
+            mazemap = null;
+        }
+        if (solver != null) {
+            solver.Release();
+        }
+        solution = null;
+        exitField = null;
+        junctions = null;
+        paths = null;
         bMapCreated = false;
-        rand = new Random(System.currentTimeMillis());
+    }
+
+    // Get the position of the exit
+    public int getExitPos() {
+        return (exit);
+    }
+
+    // Get the solution as square indexes, from the exit back to the entrance
+    int[] GetSolutionCells() {
+        return GetSolution().ToArray();
+    }
+
+    // Set the solution from square indexes, from the exit back to the entrance
+    void SetSolutionCells(int cells[]) {
+        solution = new SolutionPath(cells, width);
     }
 }
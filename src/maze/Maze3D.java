@@ -29,7 +29,6 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.IntBuffer;
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.Map;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -80,6 +79,11 @@ public class Maze3D implements GLEventListener {
 
     private TextRenderer renderer;
 
+    // Frame time and render statistics, and the quads sent this frame
+    private final FrameStats stats = new FrameStats();
+    private boolean show_stats = false;
+    private int quads = 0;
+
     Map<Navigate, String> map = Stream.of(new Object[][]{
         {Navigate.Left, "Turn Left"},
         {Navigate.Right, "Turn Right"},
@@ -139,6 +143,9 @@ public class Maze3D implements GLEventListener {
     @Override
     public void display(GLAutoDrawable drawable) {
 
+        stats.BeginFrame();
+        quads = 0;
+
         // Initialise the screen and viewpoint
         final GL2 gl = drawable.getGL().getGL2();
         gl.glClear(GL2.GL_COLOR_BUFFER_BIT | GL2.GL_DEPTH_BUFFER_BIT);
@@ -150,7 +157,9 @@ public class Maze3D implements GLEventListener {
 
         // If animating move the viewpoint as needed
         if (animator.isAnimating()) {
+            stats.BeginAnimate();
             DoAnimate();
+            stats.EndAnimate();
         }
 
         // If Othogonal (final) view calculate the viewpoint
@@ -174,6 +183,7 @@ public class Maze3D implements GLEventListener {
             gl.glTranslatef(x_pos + x_move, -0.5f, z_pos + z_move);
         }
 
+        stats.BeginGeometry();
         gl.glBegin(GL2.GL_QUADS); // Start Drawing The quads
         gl.glColor3f(1f, 1f, 1f);
 
@@ -185,13 +195,42 @@ public class Maze3D implements GLEventListener {
         }
 
         gl.glEnd(); // Done Drawing The Quads, output it
+        stats.EndGeometry();
 
         // Draw rthw solution as text if required
         if (solution && solution_as_text) {
             DrawTextSolution(drawable);
         }
 
+        // Draw the frame statistics if required
+        if (show_stats) {
+            DrawStats(drawable);
+        }
+
         gl.glFlush();
+        stats.EndFrame(quads);
+    }
+
+    // Display the frame statistics in the top left corner, in a smaller
+    //  size than the solution text
+    public void DrawStats(GLAutoDrawable drawable) {
+        renderer.beginRendering(drawable.getSurfaceWidth(), drawable.getSurfaceHeight());
+        renderer.setColor(1.0f, 1.0f, 0.2f, 0.8f);
+
+        float scale = 0.4f;
+        int line = (int) (renderer.getFont().getSize() * scale * 1.2f);
+        int y = drawable.getSurfaceHeight();
+        for (String text : stats.Lines()) {
+            y -= line;
+            renderer.draw3D(text, 4, y, 0.0f, scale);
+        }
+
+        renderer.endRendering();
+    }
+
+    // Get the frame time and render statistics of the view
+    public FrameStats getFrameStats() {
+        return stats;
     }
 
     // Display the next solution point as text
@@ -231,6 +270,7 @@ public class Maze3D implements GLEventListener {
                 gl.glVertex3f(i + 1, 0.0f, j - 1);
                 gl.glTexCoord2f(0.5f, 1.0f);
                 gl.glVertex3f(i + 1, 0.0f, j);
+                quads++;
 
                 // If there is a West wall draw it (as a textured quad)
                 if (maze.IsWall(i, j, Walls.West)) {
@@ -242,6 +282,7 @@ public class Maze3D implements GLEventListener {
                     gl.glVertex3f(i, 1.0f, j - 1);
                     gl.glTexCoord2f(0.0f, 1.0f);
                     gl.glVertex3f(i, 1.0f, j);
+                    quads++;
                 }
 
                 // If the East most cell need to draw an East wall (as a textured quad)
@@ -255,6 +296,7 @@ public class Maze3D implements GLEventListener {
                         gl.glVertex3f(i + 1, 1.0f, j - 1);
                         gl.glTexCoord2f(0.0f, 1.0f);
                         gl.glVertex3f(i + 1, 1.0f, j);
+                        quads++;
                     }
                 }
 
@@ -268,6 +310,7 @@ public class Maze3D implements GLEventListener {
                     gl.glVertex3f(i + 1, 1.0f, j);
                     gl.glTexCoord2f(0.0f, 1.0f);
                     gl.glVertex3f(i, 1.0f, j);
+                    quads++;
                 }
 
                 // If drawing the northmost cell, draw the north wall as well
@@ -282,6 +325,7 @@ public class Maze3D implements GLEventListener {
                         gl.glVertex3f(i + 1, 1.0f, j - 1);
                         gl.glTexCoord2f(0.0f, 1.0f);
                         gl.glVertex3f(i, 1.0f, j - 1);
+                        quads++;
                     }
                 }
             }
@@ -289,36 +333,25 @@ public class Maze3D implements GLEventListener {
 
         // If the user wants the solution ("Show me the way to go home" is checked
         if (solution && !solution_as_text) {
-            // Get the solution iterator
-            Iterator<Point> iter = maze.iterator3D();
-            if (!iter.hasNext()) {
-                return;
-            }
-
             // Solution line is green
             gl.glColor3f(0f, 1f, 0f);
 
-            // The maze iterator is set to iterate teh solution line from entrance to exit
-            Point p1 = iter.next();
-            Point p2;
-
-            while (iter.hasNext()) {
-                p2 = iter.next();
-
+            // The solution line is visited a step at a time from the next
+            //  square to the exit
+            maze.VisitSolution3D((x1, y1, x2, y2) -> {
                 // Calculate and draw as an untextured quad, so only the vertices 
                 //   (spacial co-rdinates are neeeded)
-                float minx = Math.min(p1.x, p2.x) + 0.45f;
-                float maxx = Math.max(p1.x, p2.x) + 0.55f;
-                float miny = Math.min(p1.y, p2.y) - 0.55f;
-                float maxy = Math.max(p1.y, p2.y) - 0.45f;
+                float minx = Math.min(x1, x2) + 0.45f;
+                float maxx = Math.max(x1, x2) + 0.55f;
+                float miny = Math.min(y1, y2) - 0.55f;
+                float maxy = Math.max(y1, y2) - 0.45f;
 
                 gl.glVertex3f(maxx, 0.1f, maxy);
                 gl.glVertex3f(minx, 0.1f, maxy);
                 gl.glVertex3f(minx, 0.1f, miny);
                 gl.glVertex3f(maxx, 0.1f, miny);
-
-                p1 = p2;
-            }
+                quads++;
+            });
         }
     }
 
@@ -342,6 +375,7 @@ public class Maze3D implements GLEventListener {
                 gl.glVertex3f(i + 1, 0.0f, j + 1);
                 gl.glTexCoord2f(0.5f, 1.0f);
                 gl.glVertex3f(i + 1, 0.0f, j);
+                quads++;
             }
         }
 
@@ -370,6 +404,7 @@ public class Maze3D implements GLEventListener {
                     gl.glVertex3f(endX, 1.0f, endY);
                     gl.glTexCoord2f(0.0f, 1.0f);
                     gl.glVertex3f(startX, 1.0f, startY);
+                    quads++;
                 }
 
                 // Draw the north wall (which is curved), so draw as a set of textured quads
@@ -391,6 +426,7 @@ public class Maze3D implements GLEventListener {
                         gl.glVertex3f(endX, 1.0f, endY);
                         gl.glTexCoord2f(texture, 1.0f);
                         gl.glVertex3f(startX, 1.0f, startY);
+                        quads++;
 
                         // The enpoint is the start point of the next segment
                         startX = endX;
@@ -421,6 +457,7 @@ public class Maze3D implements GLEventListener {
                             gl.glVertex3f(endX, 1.0f, endY);
                             gl.glTexCoord2f(texture, 1.0f);
                             gl.glVertex3f(startX, 1.0f, startY);
+                            quads++;
 
                             // The end point becomes the start point of the next segemnt
                             startX = endX;
@@ -435,36 +472,25 @@ public class Maze3D implements GLEventListener {
 
         // If the user wants a solution line ("Show me the way to go home" is checked)
         if (solution && !solution_as_text) {
-            // get the solution iterator
-            Iterator<Point> iter = maze.iterator3D();
-            if (!iter.hasNext()) {
-                return;
-            }
-
             // Solution line is green
             gl.glColor3f(0f, 1f, 0f);
 
-            // The maze iterator is set to iterate teh solution line 
-            //  from currnt location to exit
-            Point p1 = iter.next();
-            Point p2;
-
-            // Calculate the start point of the solution line segment
             float sect_angle = (float) (Math.PI * 2) / width;
-            float angle1 = p1.x * sect_angle + sect_angle / 2;
-            float x1 = (float) (Math.cos(angle1) * (height + 2.5f - p1.y));
-            float y1 = (float) (-Math.sin(angle1) * (height + 2.5f - p1.y));
 
-            //  while more solution lline parts
-            while (iter.hasNext()) {
-                p2 = iter.next();
+            // The solution line is visited a step at a time from the next
+            //  square to the exit
+            maze.VisitSolution3D((px1, py1, px2, py2) -> {
+                // Calculate the start point of the solution line segment
+                float angle1 = px1 * sect_angle + sect_angle / 2;
+                float x1 = (float) (Math.cos(angle1) * (height + 2.5f - py1));
+                float y1 = (float) (-Math.sin(angle1) * (height + 2.5f - py1));
 
                 // Is it a straight of curved line.  A straight line is drawn as
                 //   single object.  Curved line is segmented
-                int segments = (p1.x == p2.x) ? 1 : SEGMENTS;
+                int segments = (px1 == px2) ? 1 : SEGMENTS;
                 for (int s = 1; s <= segments; s++) {
                     // Handle wrap around
-                    int p2diff = p2.x - p1.x;
+                    int p2diff = px2 - px1;
                     if (p2diff > 1) {
                         p2diff = -1;
                     }
@@ -473,11 +499,11 @@ public class Maze3D implements GLEventListener {
                     }
 
                     // Caluculate the end point
-                    float end_seg = p1.x + ((float) p2diff * s) / segments;
+                    float end_seg = px1 + ((float) p2diff * s) / segments;
                     float angle2 = end_seg * sect_angle + sect_angle / 2;
 
-                    float x2 = (float) (Math.cos(angle2) * (height + 2.5f - p2.y));
-                    float y2 = (float) (-Math.sin(angle2) * (height + 2.5f - p2.y));
+                    float x2 = (float) (Math.cos(angle2) * (height + 2.5f - py2));
+                    float y2 = (float) (-Math.sin(angle2) * (height + 2.5f - py2));
 
                     // This stops the colution line from becoming too thin or disappearring
                     //  by ensuring the width values (+/- 0.05) do not go in the same direction
@@ -492,14 +518,14 @@ public class Maze3D implements GLEventListener {
                     gl.glVertex3f(x1 - 0.05f, 0.1f, y1 - 0.05f * sgn);
                     gl.glVertex3f(x2 - 0.05f, 0.1f, y2 - 0.05f * sgn);
                     gl.glVertex3f(x2 + 0.05f, 0.1f, y2 + 0.05f * sgn);
+                    quads++;
 
                     // end point becomes the start point of the next segment
                     x1 = x2;
                     y1 = y2;
 
                 }
-                p1 = p2;
-            }
+            });
         }
     }
 
@@ -933,11 +959,12 @@ public class Maze3D implements GLEventListener {
     }
 
     // Handle the 3D button being pressed
-    public static void create(Maze mazeOb) {
+    //  Returns the view, or null if one is already displayed
+    public static Maze3D create(Maze mazeOb) {
 
         if (displayed) {
             JOptionPane.showMessageDialog(null, "Only one 3D view is allowed at a time");
-            return;
+            return null;
         }
 
         // Create the OpenGL canvas
@@ -965,7 +992,7 @@ public class Maze3D implements GLEventListener {
 
         // Add the check box panel
         JPanel checks = new JPanel();
-        checks.setLayout(new GridLayout(1, 2));
+        checks.setLayout(new GridLayout(1, 3));
 
         // Add the show solution check box
         JCheckBox show_solution = new JCheckBox("Show me the way to go home");
@@ -992,6 +1019,19 @@ public class Maze3D implements GLEventListener {
             frame.requestFocus();
         });
 
+        JCheckBox frame_stats = new JCheckBox("Frame statistics");
+        checks.add(frame_stats);
+        frame_stats.addActionListener((ActionEvent evt) -> {
+            // When the checkbox is changed
+            MazeRenderer.show_stats = frame_stats.isSelected();
+            MazeRenderer.stats.Reset();
+            // re-display the maze with/without the statistics
+            glcanvas.display();
+
+            // Give the focus back to the frame
+            frame.requestFocus();
+        });
+
         // Add the check boxes to the panelbottom of the frame
         frame.getContentPane().add(checks, BorderLayout.PAGE_END);
 
@@ -1005,5 +1045,6 @@ public class Maze3D implements GLEventListener {
 
         // Create an animator
         MazeRenderer.animator = new FPSAnimator(glcanvas, 300, true);
+        return MazeRenderer;
     }
 }
@@ -0,0 +1,233 @@
+//
+// MazeBatch.java
+// Command line entry point to generate and solve many mazes without any
+//  user interface (AWT and JOGL are never started).
+//
+//  Mazes are generated from a range of seeds on a pool of worker threads,
+//    solved, and written to a directory (one file per maze) or to stdout.
+//    At the end the throughput and per-maze latency are reported on stderr.
+//
+//  Usage: java -cp Maze.jar maze.MazeBatch [options]
+//    --count N          number of mazes (default 100)
+//    --width W          width, or radials for a circular maze (default 25)
+//    --height H         height, or layers for a circular maze (default 25)
+//    --circular         generate circular mazes
+//    --algorithm A      generation algorithm (default Backtracker)
+//    --seed S           first seed, maze i uses seed S + i (default 0)
+//    --threads T        worker threads (default number of processors)
+//    --out DIR|-        directory to write mazes to, - for stdout (default none)
+//    --format F         text, or binary (MazeFile, directory only) (default text)
+//
+package maze;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import maze.Maze.Walls;
+
+//
+// Batch maze generator
+public class MazeBatch {
+
+    private int count = 100;
+    private int width = 25;
+    private int height = 25;
+    private boolean circular = false;
+    private MazeGenerator.Algorithm algorithm = MazeGenerator.Algorithm.Backtracker;
+    private long seed = 0;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private String out = null;
+    private boolean binary = false;
+
+    // Main entry point
+    public static void main(String args[]) {
+        System.setProperty("java.awt.headless", "true");
+
+        MazeBatch batch = new MazeBatch();
+        try {
+            batch.ParseArgs(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: maze.MazeBatch [--count N] [--width W] [--height H] [--circular]"
+                    + " [--algorithm A] [--seed S] [--threads T] [--out DIR|-] [--format text|binary]");
+            System.err.println("Algorithms: " + Arrays.toString(MazeGenerator.Algorithm.values()));
+            System.exit(2);
+        }
+
+        try {
+            batch.Run(System.err);
+        } catch (IOException | InterruptedException | ExecutionException e) {
+            System.err.println("Batch failed: " + e);
+            System.exit(1);
+        }
+    }
+
+    // Read the command line options
+    private void ParseArgs(String args[]) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("--circular")) {
+                circular = true;
+                continue;
+            }
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + arg);
+            }
+            String value = args[++i];
+            try {
+                switch (arg) {
+                    case "--count":
+                        count = Integer.parseInt(value);
+                        break;
+                    case "--width":
+                        width = Integer.parseInt(value);
+                        break;
+                    case "--height":
+                        height = Integer.parseInt(value);
+                        break;
+                    case "--algorithm":
+                        algorithm = MazeGenerator.Algorithm.valueOf(value);
+                        break;
+                    case "--seed":
+                        seed = Long.parseLong(value);
+                        break;
+                    case "--threads":
+                        threads = Integer.parseInt(value);
+                        break;
+                    case "--out":
+                        out = value;
+                        break;
+                    case "--format":
+                        if (!value.equals("text") && !value.equals("binary")) {
+                            throw new IllegalArgumentException("Format must be text or binary");
+                        }
+                        binary = value.equals("binary");
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option " + arg);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid value for " + arg + ": " + value);
+            }
+        }
+        if (count < 1 || width < 1 || height < 1 || threads < 1) {
+            throw new IllegalArgumentException("Count, width, height and threads must be positive");
+        }
+        if (binary && (out == null || out.equals("-"))) {
+            throw new IllegalArgumentException("Binary format needs an output directory");
+        }
+    }
+
+    // Generate, solve and write the mazes, then report the figures
+    private void Run(PrintStream report) throws IOException, InterruptedException, ExecutionException {
+        Path dir = (out == null || out.equals("-")) ? null : Paths.get(out);
+        if (dir != null) {
+            Files.createDirectories(dir);
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<Long>> results = new ArrayList<>(count);
+        long start = System.nanoTime();
+
+        for (int i = 0; i < count; i++) {
+            MazeKey key = new MazeKey(seed + i, width, height, circular, algorithm);
+            results.add(pool.submit(() -> {
+                long begin = System.nanoTime();
+                Maze maze = key.Generate();
+                long nanos = System.nanoTime() - begin;
+                Write(key, maze, dir);
+                return nanos;
+            }));
+        }
+
+        long latency[] = new long[count];
+        for (int i = 0; i < count; i++) {
+            latency[i] = results.get(i).get();
+        }
+        long total = System.nanoTime() - start;
+        pool.shutdown();
+
+        Arrays.sort(latency);
+        double seconds = total / 1.0e9;
+        report.printf("%d %s %dx%d %s mazes on %d threads in %.3f s%n", count, algorithm, width, height,
+                circular ? "circular" : "rectangular", threads, seconds);
+        report.printf("throughput: %.1f mazes/s, %.0f cells/s%n", count / seconds,
+                (double) count * width * height / seconds);
+        report.printf("latency per maze: p50 %.3f ms, p99 %.3f ms, max %.3f ms%n",
+                Percentile(latency, 0.50) / 1.0e6, Percentile(latency, 0.99) / 1.0e6,
+                latency[count - 1] / 1.0e6);
+    }
+
+    // Get a percentile of a sorted array
+    private static long Percentile(long sorted[], double fraction) {
+        return sorted[(int) Math.ceil(fraction * sorted.length) - 1];
+    }
+
+    // Write a maze to its own file in the directory, or to stdout
+    private void Write(MazeKey key, Maze maze, Path dir) throws IOException {
+        if (out == null) {
+            return;
+        }
+        if (binary) {
+            MazeFile.Write(maze, dir.resolve(key.getName() + ".maze"), true);
+            return;
+        }
+        StringBuilder text = new StringBuilder();
+        text.append(key.getName()).append('\n');
+        WriteText(maze, text);
+
+        if (dir == null) {
+            synchronized (System.out) {
+                System.out.print(text);
+            }
+        } else {
+            try (Writer writer = Files.newBufferedWriter(dir.resolve(key.getName() + ".txt"), StandardCharsets.US_ASCII)) {
+                writer.append(text);
+            }
+        }
+    }
+
+    // Draw a maze as text, with the solution marked.  A circular maze is
+    //  drawn unwrapped, with the outer layer at the top.
+    public static void WriteText(Maze maze, StringBuilder text) {
+        int width = maze.getWidth();
+        int height = maze.getHeight();
+
+        boolean onPath[] = new boolean[width * height];
+        for (int cell : maze.GetSolutionCells()) {
+            onPath[cell] = true;
+        }
+
+        for (int y = 0; y < height; y++) {
+            // North walls
+            for (int x = 0; x < width; x++) {
+                text.append('+').append(maze.IsWall(x, y, Walls.North) ? "---" : "   ");
+            }
+            text.append("+\n");
+
+            // West walls and the squares
+            for (int x = 0; x < width; x++) {
+                text.append(maze.IsWall(x, y, Walls.West) ? '|' : ' ');
+                text.append(onPath[maze.CellIndex(x, y)] ? " * " : "   ");
+            }
+            text.append(maze.IsWall(width - 1, y, Walls.East) ? "|\n" : " \n");
+        }
+
+        // South walls of the last row
+        for (int x = 0; x < width; x++) {
+            text.append('+').append(maze.IsWall(x, height - 1, Walls.South) ? "---" : "   ");
+        }
+        text.append("+\n");
+    }
+}
@@ -0,0 +1,232 @@
+//
+// MazeCache.java
+// A cache of generated (and solved) mazes, keyed by MazeKey.
+//
+//  The most recently used mazes are held in memory, up to a fixed number;
+//    the least recently used is evicted when the cache is full.  If a
+//    directory is given, every maze generated is also written there as a
+//    MazeFile with its solution, so a maze evicted from memory (or made by
+//    an earlier run) is read back instead of being generated and solved
+//    again.
+//
+//  Callers are given their own copy of a cached maze, so each can navigate
+//    it without affecting the others.  The cache may be used from many
+//    threads at once; a maze asked for again while it is being generated
+//    or read is waited for, not generated twice.  A maze evicted or
+//    cleared from memory is closed (releasing a mapped file) once no caller
+//    is copying it.
+//
+package maze;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+//
+// Maze cache
+public class MazeCache {
+
+    private final int capacity;
+    private final Path directory;  // on-disk tier, null if none
+    private final LinkedHashMap<MazeKey, Entry> entries;
+
+    // Counters
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    //
+    // A maze in memory, or being generated or read.  Guarded by entries
+    private static class Entry {
+        final CompletableFuture<Maze> maze = new CompletableFuture<>();
+        int users = 0;  // callers generating, waiting for or copying the maze
+        boolean dropped = false;  // evicted or cleared, to be closed when unused
+    }
+
+    // Constructor - memory only cache holding up to capacity mazes
+    public MazeCache(int capacity) {
+        this(capacity, null);
+    }
+
+    // Constructor - cache holding up to capacity mazes in memory, and all
+    //  mazes in a directory
+    public MazeCache(int capacity, Path directory) {
+        this.capacity = capacity;
+        this.directory = directory;
+        // access ordered, so the eldest entry is the least recently used
+        this.entries = new LinkedHashMap<MazeKey, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<MazeKey, Entry> eldest) {
+                if (size() > MazeCache.this.capacity) {
+                    evictions.incrementAndGet();
+                    Drop(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    // Get the maze for a key, generating it if it is not cached.  Only the
+    //  first caller for a key reads or generates it, any others wait for it
+    public Maze Get(MazeKey key) throws IOException {
+        Entry entry;
+        boolean first = false;
+        synchronized (entries) {
+            entry = entries.get(key);
+            if (entry == null) {
+                entry = new Entry();
+                entries.put(key, entry);
+                first = true;
+            }
+            entry.users++;
+        }
+
+        try {
+            Maze maze;
+            if (first) {
+                maze = Find(key, entry);
+            } else {
+                hits.incrementAndGet();
+                try {
+                    maze = entry.maze.join();
+                } catch (CompletionException e) {
+                    if (e.getCause() instanceof IOException) {
+                        throw new IOException(e.getCause().getMessage(), e.getCause());
+                    }
+                    throw e;
+                }
+            }
+            return maze.Copy();
+        } finally {
+            Release(entry);
+        }
+    }
+
+    // Read or generate the maze of a new entry, and let any callers
+    //  waiting for it have it.  If it fails the entry is removed, so the
+    //  maze is tried again the next time it is asked for
+    private Maze Find(MazeKey key, Entry entry) throws IOException {
+        try {
+            Maze maze = Load(key);
+            if (maze != null) {
+                diskHits.incrementAndGet();
+            } else {
+                misses.incrementAndGet();
+                maze = key.Generate();
+                Save(key, maze);
+            }
+            entry.maze.complete(maze);
+            return maze;
+        } catch (IOException | RuntimeException | Error e) {
+            synchronized (entries) {
+                entries.remove(key, entry);
+            }
+            entry.maze.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    // A caller has finished with an entry, close its maze if it was dropped
+    //  while in use
+    private void Release(Entry entry) {
+        synchronized (entries) {
+            entry.users--;
+            if (entry.dropped) {
+                Drop(entry);
+            }
+        }
+    }
+
+    // Mark an entry as no longer cached, and close its maze if no caller
+    //  is using it.  Called holding the entries lock
+    private static void Drop(Entry entry) {
+        entry.dropped = true;
+        if (entry.users == 0 && entry.maze.isDone() && !entry.maze.isCompletedExceptionally()) {
+            entry.maze.join().close();
+        }
+    }
+
+    // Remove every maze from memory (the disk tier is kept)
+    public void Clear() {
+        synchronized (entries) {
+            for (Entry entry : entries.values()) {
+                Drop(entry);
+            }
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getDiskHits() {
+        return diskHits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    // Fraction of requests answered without generating a maze
+    public double getHitRatio() {
+        long found = hits.get() + diskHits.get();
+        long total = found + misses.get();
+        return (total == 0) ? 0.0 : (double) found / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d/%d mazes, %d hits, %d disk hits, %d misses, %d evictions, %.1f%% hit ratio",
+                size(), capacity, getHits(), getDiskHits(), getMisses(), getEvictions(), getHitRatio() * 100.0);
+    }
+
+    // Write a maze to the disk tier
+    private void Save(MazeKey key, Maze maze) throws IOException {
+        if (directory == null) {
+            return;
+        }
+        Files.createDirectories(directory);
+        Path file = directory.resolve(key.getName() + ".maze");
+        Path temp = Files.createTempFile(directory, key.getName(), ".tmp");
+
+        MazeFile.Write(maze, temp, true);
+
+        // rename into place, so a reader never sees a partly written maze
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Read a maze from the disk tier, null if it is not there
+    private Maze Load(MazeKey key) throws IOException {
+        if (directory == null) {
+            return null;
+        }
+        Path file = directory.resolve(key.getName() + ".maze");
+        if (!Files.exists(file)) {
+            return null;
+        }
+        return MazeFile.Open(file);
+    }
+}
@@ -5,16 +5,25 @@
 
 package maze;
 
-import java.awt.BasicStroke;
+import java.awt.AlphaComposite;
 import java.awt.Graphics;
+import java.awt.GraphicsConfiguration;
+import java.awt.Image;
+import java.awt.Point;
 import java.awt.Rectangle;
-import java.awt.Color;
 import java.awt.Graphics2D;
-import java.awt.Point;
-import java.awt.Stroke;
-import java.util.Iterator;
+import java.awt.RenderingHints;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
 import javax.swing.JOptionPane;
-import maze.Maze.Walls;
+import javax.swing.SwingUtilities;
 
 //
 // Main maze Dialog class
@@ -31,6 +40,13 @@ public class MazeDlg extends javax.swing.JFrame {
         jHelpText.setText(RectHelp);
         textRadials.setEnabled(false);
         textLayers.setEnabled(false);
+        getView().setMaze(maze);
+        getView().setAccelerated(true);
+    }
+
+    // Get the panel the maze is drawn on
+    private MazeView getView() {
+        return (MazeView) jPanel1;
     }
     
     // Get details of the maze to be generated
@@ -49,8 +65,8 @@ public class MazeDlg extends javax.swing.JFrame {
                 return false;
             }
             
-            if (width < 5 || width > 25 || height < 5 || height > 25) {
-                JOptionPane.showMessageDialog(null, "Width and Height must be numeric values in range 5 to 25");
+            if (width < 5 || height < 5) {
+                JOptionPane.showMessageDialog(null, "Width and Height must be at least 5");
                 return false;
             }
         } else {
@@ -63,11 +79,17 @@ public class MazeDlg extends javax.swing.JFrame {
                 return false;
             }
             
-            if (width < 15 || width > 30 || height < 4 || height > 8) {
-                JOptionPane.showMessageDialog(null, "radials must be between 15 and 30 and Layers must be bettwen 4 and 8");
+            if (width < 15 || height < 4) {
+                JOptionPane.showMessageDialog(null, "Radials must be at least 15 and Layers at least 4");
                 return false;
             }
         }
+        
+        // The map is indexed by an int, and held in one array
+        if ((long) width * height > MAX_SQUARES) {
+            JOptionPane.showMessageDialog(null, "The maze can have at most " + MAX_SQUARES + " squares");
+            return false;
+        }
         maze.setSize(width, height);
         return true;
     }
@@ -265,6 +287,9 @@ public class MazeDlg extends javax.swing.JFrame {
     // Handle the user pressing the Create button
     private void btnCreateActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_btnCreateActionPerformed
         
+        // Stop the tiles of the old maze being made from the new one
+        getView().CloseTiles();
+        
         // Get the maze details
         if (!GetMazeParams()) {
             return;
@@ -272,18 +297,17 @@ public class MazeDlg extends javax.swing.JFrame {
         
         // Create the maze
         maze.CreateMaze(jCircButton.isSelected());
-        btn3D.setEnabled(true);  // User can now use the 3D button
+        btn3D.setEnabled(Fits3D());  // User can now use the 3D button, if the maze is small enough
         
         // Maze is ready to draw
         jPanel1.invalidate();
         jPanel1.repaint();
     }//GEN-LAST:event_btnCreateActionPerformed
 
-    // redraw the maze if the user selects or de-selects the show solution
-    //  checkbox, the drawing function will pick up the state of this
+    // redraw the solution if the user selects or de-selects the show solution
+    //  checkbox, the view repaints only the part of the panel it covers
     private void chkShowSolutionItemStateChanged(java.awt.event.ItemEvent evt) {//GEN-FIRST:event_chkShowSolutionItemStateChanged
-        jPanel1.invalidate();
-        jPanel1.repaint();
+        getView().setShowSolution(chkShowSolution.getState());
     }//GEN-LAST:event_chkShowSolutionItemStateChanged
 
     // Set the correct component state if the user presses the rectangular radio button
@@ -307,6 +331,15 @@ public class MazeDlg extends javax.swing.JFrame {
 
     }//GEN-LAST:event_jCircButtonActionPerformed
 
+    // Is the maze small enough for the 3D view, which draws every square
+    //  each frame
+    private boolean Fits3D() {
+        if (maze.isCircular()) {
+            return maze.getWidth() <= MAX_3D_RADIALS && maze.getHeight() <= MAX_3D_LAYERS;
+        }
+        return maze.getWidth() <= MAX_3D_WIDTH && maze.getHeight() <= MAX_3D_HEIGHT;
+    }
+
     // Handle the user pressing the 3D button
     private void btn3DActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_btn3DActionPerformed
         Maze3D.create(maze);
@@ -348,10 +381,227 @@ public class MazeDlg extends javax.swing.JFrame {
         });
     }
     
-    // Implement the panel which containsthe drawing code for the maze
-    public class MazeView extends javax.swing.JPanel {
+    // Implement the panel which containsthe drawing code for the maze.
+    //  It does not depend on the dialog, so it can also draw off screen.
+    //  The maze can be zoomed with the mouse wheel and panned by dragging
+    //  it (a double click shows it whole again).  The drawing is done by a
+    //  MazePainter, which only draws the squares reaching into the area
+    //  being drawn, in the detail their size allows.  A rectangular maze
+    //  of tiledSquares squares or more is drawn from a TilePyramid instead
+    //  whenever its squares are smaller than the finest tiles, so the
+    //  whole of a maze too large to draw on demand can be browsed.
+    //  The walls and the solution are held in cached images (the walls in an
+    //  accelerated VolatileImage if asked for).  Panning moves what is in the
+    //  images and draws only the strips uncovered, so a repaint costs about
+    //  the same whatever the size of the maze.
+    public static class MazeView extends javax.swing.JPanel {
+        
+        static final double MAX_SQUARE_PIXELS = 64.0;  // the most a square is zoomed to
+        static final int MAX_ZOOMED_PIXELS = Integer.MAX_VALUE / 2;  // the most the panel is zoomed to, with room to add to it
+        static final double ZOOM_STEP = 1.25;  // zoom for a click of the mouse wheel
+        static final long TILED_SQUARES = 1L << 26;
+        static final int TILE_CACHE = 512;  // tiles held in memory, 128MB
+        
+        private Maze maze = null;
+        private boolean showSolution = false;
+        private boolean accelerated = false;
+        private final MazePainter painter = new MazePainter(null);
+        
+        // The view.  The maze is drawn zoom times the size of the panel, and
+        //  the panel shows it from panX, panY pixels in
+        private double zoom = 1.0;
+        private int panX = 0;
+        private int panY = 0;
+        private Maze viewMaze = null;  // maze and map version the view is for
+        private long viewVersion = -1;
+        private Point dragFrom = null;
+        
+        // Cached layers
+        private final Layer wallLayer = new Layer(false);
+        private final Layer solutionLayer = new Layer(true);
+        
+        // Tile pyramid for very large mazes, and where its tiles are kept.
+        //  Tiles are only kept on disk if a directory is given, by
+        //  setTileDirectory or -Dmaze.tiles=DIR, as they are never removed
+        private long tiledSquares = TILED_SQUARES;
+        private Path tileDirectory = (System.getProperty("maze.tiles") != null)
+                ? Paths.get(System.getProperty("maze.tiles")) : null;
+        private TilePyramid tiles = null;
+        private ForkJoinPool tilePool = null;
+        private final AtomicBoolean tilesReady = new AtomicBoolean();
+        
+        //
+        // A cached image of the drawing, and the view it was drawn for
+        private static class Layer {
+            
+            final boolean translucent;
+            Image image = null;
+            boolean drawn = false;
+            Maze maze = null;
+            long version = -1;
+            double zoom = 0;
+            int panX = 0;
+            int panY = 0;
+            
+            Layer(boolean translucent) {
+                this.translucent = translucent;
+            }
+        }
+        
+        //
+        // Draws an area of a layer
+        private interface AreaPainter {
+            void Paint(Graphics2D g, Rectangle area);
+        }
         
         public MazeView() {
+            MouseAdapter mouse = new MouseAdapter() {
+                @Override
+                public void mousePressed(MouseEvent e) {
+                    dragFrom = e.getPoint();
+                }
+                
+                @Override
+                public void mouseDragged(MouseEvent e) {
+                    if (dragFrom != null) {
+                        PanBy(dragFrom.x - e.getX(), dragFrom.y - e.getY());
+                        dragFrom = e.getPoint();
+                    }
+                }
+                
+                @Override
+                public void mouseReleased(MouseEvent e) {
+                    dragFrom = null;
+                }
+                
+                @Override
+                public void mouseClicked(MouseEvent e) {
+                    if (e.getClickCount() == 2) {
+                        ResetView();
+                    }
+                }
+                
+                @Override
+                public void mouseWheelMoved(MouseWheelEvent e) {
+                    ZoomAt(e.getX(), e.getY(), Math.pow(ZOOM_STEP, -e.getPreciseWheelRotation()));
+                }
+            };
+            addMouseListener(mouse);
+            addMouseMotionListener(mouse);
+            addMouseWheelListener(mouse);
+        }
+        
+        // Set the maze to draw
+        public void setMaze(Maze maze) {
+            this.maze = maze;
+            painter.setMaze(maze);
+        }
+        
+        // Set whether the solution is drawn, repainting only the part of
+        //  the panel it covers
+        public void setShowSolution(boolean show) {
+            if (show != showSolution) {
+                showSolution = show;
+                repaint(GetSolutionBounds());
+            }
+        }
+        
+        // Set whether the wall layer is held in an accelerated image
+        public void setAccelerated(boolean accelerated) {
+            this.accelerated = accelerated;
+            wallLayer.drawn = false;
+        }
+        
+        // Set the number of squares from which a rectangular maze is drawn
+        //  from a tile pyramid
+        public void setTiledSquares(long squares) {
+            tiledSquares = squares;
+            wallLayer.drawn = false;
+        }
+        
+        // Set the directory tiles are written to, null to keep them only in memory
+        public void setTileDirectory(Path directory) {
+            tileDirectory = directory;
+        }
+        
+        // Get the tile pyramid of the maze, null if it is not drawn from one
+        public TilePyramid getTiles() {
+            return tiles;
+        }
+        
+        // Close the tile pyramid, waiting for the tiles being made, before
+        //  the maze is changed.  A new one is started when next drawn
+        public void CloseTiles() {
+            if (tiles != null) {
+                tiles.Close();
+                tiles = null;
+            }
+        }
+        
+        // Get the zoom, 1 shows the whole maze
+        public double getZoom() {
+            return zoom;
+        }
+        
+        // Get the pixel of the zoomed maze shown at the left of the panel
+        public int getPanX() {
+            return panX;
+        }
+        
+        // Get the pixel of the zoomed maze shown at the top of the panel
+        public int getPanY() {
+            return panY;
+        }
+        
+        // Set the zoom and the pixel of the zoomed maze shown at the top left
+        //  of the panel.  Both are kept to what shows part of the maze
+        public void setView(double zoom, int panX, int panY) {
+            this.zoom = Math.max(1.0, Math.min(zoom, MaxZoom()));
+            this.panX = panX;
+            this.panY = panY;
+            ClampPan();
+            repaint();
+        }
+        
+        // Zoom by a factor, keeping the point under a pixel of the panel still
+        public void ZoomAt(int x, int y, double factor) {
+            double to = Math.max(1.0, Math.min(zoom * factor, MaxZoom()));
+            double scale = to / zoom;
+            setView(to, (int) Math.round((panX + x) * scale - x), (int) Math.round((panY + y) * scale - y));
+        }
+        
+        // Move the view by a number of pixels
+        public void PanBy(int dx, int dy) {
+            setView(zoom, panX + dx, panY + dy);
+        }
+        
+        // Show the whole maze
+        public void ResetView() {
+            setView(1.0, 0, 0);
+        }
+        
+        // The most the maze can be zoomed, so a square is no more than
+        //  MAX_SQUARE_PIXELS across and the zoomed panel no more than
+        //  MAX_ZOOMED_PIXELS, which a long thin maze reaches first
+        private double MaxZoom() {
+            if (maze == null || !maze.isCreated() || getWidth() <= 0 || getHeight() <= 0) {
+                return 1.0;
+            }
+            double fit = Math.min((double) getWidth() / maze.getWidth(), (double) getHeight() / maze.getHeight());
+            double most = (double) MAX_ZOOMED_PIXELS / Math.max(getWidth(), getHeight());
+            return Math.max(1.0, Math.min(MAX_SQUARE_PIXELS / fit, most));
+        }
+        
+        // Keep the view inside the zoomed maze
+        private void ClampPan() {
+            panX = Math.max(0, Math.min(panX, (int) Math.round(getWidth() * zoom) - getWidth()));
+            panY = Math.max(0, Math.min(panY, (int) Math.round(getHeight() * zoom) - getHeight()));
+        }
+        
+        // Bounds of the whole zoomed maze, relative to the panel
+        private Rectangle ContentBounds() {
+            return new Rectangle(-panX, -panY, (int) Math.round(getWidth() * zoom),
+                    (int) Math.round(getHeight() * zoom));
         }
         
         // Determine the maze type and call the correct drawing function
@@ -360,243 +610,264 @@ public class MazeDlg extends javax.swing.JFrame {
             
             super.paintComponent(g);
             
-            if (maze.isCreated()) {
-                if (!maze.isCircular()) {
-                    DrawRectangular(g);
-                } else {
-                    DrawCircular(g);
+            if (CanDraw()) {
+                painter.setBackground(getBackground());
+                PaintLayer(g, wallLayer, this::DrawWallArea);
+                if (showSolution) {
+                    PaintLayer(g, solutionLayer, this::DrawSolutionArea);
                 }
             }
         }
         
-        // Draw a circular maze
-        private void DrawCircular(Graphics g) {
-            //  Get the drawing rect
-            g.setColor(Color.BLACK);
-            Rectangle r = g.getClipBounds();
-            
-            // set the line width
-            Graphics2D g2 = (Graphics2D) g;
-            Stroke oldStroke = g2.getStroke();
-            g2.setStroke(new BasicStroke(5));
-            
-            // Reduce the size of the clip rectangle (as that the maze is 
-            //  clearly fully shown)
-            int rad_offset = 8;
-            r.x += rad_offset;
-            r.y += rad_offset;
-            r.height -= rad_offset * 2;
-            r.width -= rad_offset * 2;
-            
-            // Get the width and height
-            int width = maze.getWidth();
-            int height = maze.getHeight();
-            
-            // Calculate the angle of a map sector
-            double sect_angle = 360.0 / width;
-            int x_centre = r.width / 2 + rad_offset; //  Get the centre point
-            int y_centre = r.height / 2 + rad_offset;
-            
-            int centre_rad = 3;  // The centre is equivalent to 3 layers
-            int x_sect = x_centre / (centre_rad + height);
-            int y_sect = y_centre / (centre_rad + height);
-            
-            double deg_to_rad = (2.0 * Math.PI) / 360.0;
-            
-            // For each row/column of the maze
-            for (int j = 0; j < height; j++) {
-                for (int i = 0; i < width; i++) {
-                    
-                    // Draw the North wall
-                    if (maze.IsWall(i, j, Walls.North)) {
-                        g.drawArc(j * x_sect + rad_offset, j * y_sect + rad_offset,
-                                r.width - (2 * j * x_sect), r.height - (2 * j * y_sect),
-                                (int) (i * sect_angle), (int) (sect_angle + 0.5));
-                    }
-                    
-                    // Only need to draw the south wall on the innermost wall
-                    if (j == (height - 1)) {
-                        if (maze.IsWall(i, j, Walls.South)) {
-                            g.drawArc(height * x_sect + rad_offset, height * y_sect + rad_offset,
-                                    r.width - (2 * height * x_sect),
-                                    r.height - (2 * height * y_sect),
-                                    (int) (i * sect_angle), (int) (sect_angle + 0.5));
-                            
-                        }
-                    }
-                    
-                    // Draw the West wall
-                    double angle = (double) (i * sect_angle) * deg_to_rad;
-                    if (maze.IsWall(i, j, Walls.West)) {
-                        // calculate the co-ordinates
-                        int xrad1 = r.width / 2 - (j * x_sect);
-                        int xrad2 = xrad1 - x_sect;
-                        int yrad1 = r.height / 2 - (j * y_sect);
-                        int yrad2 = yrad1 - y_sect;
-                        
-                        int x1 = (int) (Math.cos(angle) * xrad1) + x_centre;
-                        int x2 = (int) (Math.cos(angle) * xrad2) + x_centre;
-                        int y1 = -(int) (Math.sin(angle) * yrad1) + y_centre;
-                        int y2 = -(int) (Math.sin(angle) * yrad2) + y_centre;
-                        g.drawLine(x1, y1, x2, y2);
+        // Check there is a maze to draw and a panel to draw it on.  A new
+        //  maze is shown whole, and the zoom is kept in bounds if the panel
+        //  has grown
+        private boolean CanDraw() {
+            if (maze == null || !maze.isCreated() || getWidth() <= 0 || getHeight() <= 0) {
+                return false;
+            }
+            if (viewMaze != maze || viewVersion != maze.getMapVersion()) {
+                viewMaze = maze;
+                viewVersion = maze.getMapVersion();
+                zoom = 1.0;
+                panX = 0;
+                panY = 0;
+            }
+            zoom = Math.min(zoom, MaxZoom());
+            ClampPan();
+            return true;
+        }
+        
+        // Copy a layer to the panel, bringing it up to date first
+        private void PaintLayer(Graphics g, Layer layer, AreaPainter painter) {
+            int w = getWidth();
+            int h = getHeight();
+            GraphicsConfiguration gc = getGraphicsConfiguration();
+            if (!accelerated || layer.translucent || gc == null) {
+                if (!(layer.image instanceof BufferedImage) || layer.image.getWidth(null) != w
+                        || layer.image.getHeight(null) != h) {
+                    if (layer.translucent) {
+                        layer.image = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB_PRE);
+                    } else {
+                        layer.image = (gc != null) ? gc.createCompatibleImage(w, h)
+                                : new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
                     }
-                    
-                    if (i == width - 1) {
-                        angle += (double) (sect_angle) * deg_to_rad;
-                        if (maze.IsWall(i, j, Walls.East)) {
-                            int xrad1 = r.width / 2 - (j * x_sect);
-                            int xrad2 = xrad1 - x_sect;
-                            
-                            int x1 = xrad1 + x_centre;
-                            int x2 = xrad2 + x_centre;
-                            int y1 = y_centre;
-                            int y2 = y_centre;
-                            g.drawLine(x1, y1, x2, y2);
-                        }
+                    layer.drawn = false;
+                }
+                UpdateLayer(layer, ((BufferedImage) layer.image).createGraphics(), painter);
+                g.drawImage(layer.image, 0, 0, null);
+                return;
+            }
+            
+            // An accelerated image can lose its contents at any time, so it
+            //  is checked before each copy and drawn again if needed
+            VolatileImage image = (layer.image instanceof VolatileImage) ? (VolatileImage) layer.image : null;
+            do {
+                int status = (image == null) ? VolatileImage.IMAGE_INCOMPATIBLE : image.validate(gc);
+                if (status == VolatileImage.IMAGE_INCOMPATIBLE
+                        || image.getWidth() != w || image.getHeight() != h) {
+                    if (image != null) {
+                        image.flush();
                     }
+                    image = gc.createCompatibleVolatileImage(w, h);
+                    layer.image = image;
+                    layer.drawn = false;
+                } else if (status == VolatileImage.IMAGE_RESTORED) {
+                    layer.drawn = false;
+                }
+                UpdateLayer(layer, image.createGraphics(), painter);
+                g.drawImage(image, 0, 0, null);
+            } while (image.contentsLost());
+        }
+        
+        // Bring a layer up to date with the view.  If only the pan has
+        //  changed since it was drawn, what is there is moved and just the
+        //  strips uncovered are drawn
+        private void UpdateLayer(Layer layer, Graphics2D g, AreaPainter painter) {
+            int w = getWidth();
+            int h = getHeight();
+            int dx = panX - layer.panX;
+            int dy = panY - layer.panY;
+            if (!layer.drawn || layer.maze != maze || layer.version != maze.getMapVersion()
+                    || layer.zoom != zoom || Math.abs(dx) >= w || Math.abs(dy) >= h) {
+                painter.Paint(g, new Rectangle(0, 0, w, h));
+            } else if (dx != 0 || dy != 0) {
+                // copy the pixels as they are, a translucent layer would
+                //  otherwise be blended over itself
+                g.setComposite(AlphaComposite.Src);
+                g.copyArea(0, 0, w, h, -dx, -dy);
+                g.setComposite(AlphaComposite.SrcOver);
+                if (dx != 0) {
+                    PaintArea(g, painter, new Rectangle((dx > 0) ? w - dx : 0, 0, Math.abs(dx), h));
+                }
+                if (dy != 0) {
+                    PaintArea(g, painter, new Rectangle(0, (dy > 0) ? h - dy : 0, w, Math.abs(dy)));
                 }
             }
-             g2.setStroke(oldStroke);
-
-            // Draw the solution if required
-            Iterator<Point> iter = maze.iterator();
-            if (chkShowSolution.getState() && iter.hasNext()) {
-                // draw solution in red
-                g.setColor(Color.RED);
-
-                // The maze iterator is set to iterate the solution line from exit to entrance
-                Point p1 = iter.next();
-                Point p2;
-                
-                while (iter.hasNext()) {
-                    p2 = iter.next();
-                    
-                    // Is this a line going inward/outward or around the maze
-                    if (p1.x == p2.x) {
-                        // Inward/Outward
-                        // Calculate the line co-ordinates
-                        int xrad1 = r.width / 2 - (Math.max(p1.y, p2.y) * x_sect) + x_sect / 2;
-                        int xrad2 = xrad1 - x_sect;
-                        int yrad1 = r.height / 2 - (Math.max(p1.y, p2.y) * y_sect) + y_sect / 2;
-                        int yrad2 = yrad1 - y_sect;
-                        double angle = (((double) (p1.x) * sect_angle) + sect_angle / 2) * deg_to_rad;
-                                               
-                        int x1 = (int) (Math.cos(angle) * xrad1) + x_centre;
-                        int x2 = (int) (Math.cos(angle) * xrad2) + x_centre;
-                        int y1 = -(int) (Math.sin(angle) * yrad1) + y_centre;
-                        int y2 = -(int) (Math.sin(angle) * yrad2) + y_centre;
-                        
-                        g.drawLine(x1, y1, x2, y2);
-                    } else {
-                        // Line going around the maze
-                        // handle wpossible rap around
-                        int base_angle = Math.min(p1.x, p2.x);
-                        if (Math.max(p1.x,p2.x) == width -1 && base_angle == 0){
-                                base_angle = -1;
-                        }
-                        
-                        g.drawArc(p1.y * x_sect + rad_offset + x_sect / 2,
-                                p1.y * y_sect + rad_offset + y_sect / 2,
-                                r.width - (2 * p1.y * x_sect) - x_sect,
-                                r.height - (2 * p1.y * y_sect) - y_sect,
-                                (int) (base_angle * sect_angle+sect_angle/2), 
-                                (int) (sect_angle + 0.5));
-                        }
-                        p1 = p2;
+            g.dispose();
+            
+            layer.drawn = true;
+            layer.maze = maze;
+            layer.version = maze.getMapVersion();
+            layer.zoom = zoom;
+            layer.panX = panX;
+            layer.panY = panY;
+        }
+        
+        // Draw an area of a layer, clipped to the area
+        private static void PaintArea(Graphics2D g, AreaPainter painter, Rectangle area) {
+            Graphics2D clipped = (Graphics2D) g.create();
+            clipped.clip(area);
+            painter.Paint(clipped, area);
+            clipped.dispose();
+        }
+        
+        // Draw the walls in an area of the wall layer, over the panel background
+        private void DrawWallArea(Graphics2D g, Rectangle area) {
+            g.setColor(getBackground());
+            g.fill(area);
+            Rectangle content = ContentBounds();
+            if (!maze.isCircular() && (long) maze.getWidth() * maze.getHeight() >= tiledSquares) {
+                MazePainter.RectLayout layout = new MazePainter.RectLayout(maze, content);
+                if (Math.max(layout.cellwidth, layout.cellheight) < TilePyramid.FINEST_SQUARE) {
+                    DrawTiles(g, layout, area);
+                    return;
                 }
             }
+            painter.DrawWalls(g, content, area);
         }
         
-        // Draw a rectangular maze
-        private void DrawRectangular(Graphics g) {
-            g.setColor(Color.BLACK);
+        // Draw the walls in an area from the pyramid level nearest the scale
+        //  of the view.  A tile which is not ready yet is stood in for by the
+        //  part of a coarser tile which is, and the tiles around the area are
+        //  fetched ready for the view to move
+        private void DrawTiles(Graphics2D g, MazePainter.RectLayout layout, Rectangle area) {
+            TilePyramid pyramid = GetTiles();
+            int level = pyramid.LevelFor(Math.max(layout.cellwidth, layout.cellheight));
+            int tile = TilePyramid.TILE;
             
-            // Get the drawing rectangle
-            Rectangle r = g.getClipBounds();
+            // panel pixels for a pixel of the level, and where its pixel 0, 0 is
+            double sx = layout.cellwidth / pyramid.Scale(level);
+            double sy = layout.cellheight / pyramid.Scale(level);
+            double ox = layout.left - pyramid.SquareX(level, 0) * sx;
+            double oy = layout.top - pyramid.SquareY(level, 0) * sy;
             
-            // get the height oand wisth of the maze (cells)
-            int width = maze.getWidth();
-            int height = maze.getHeight();
+            int tx1 = Math.max(0, (int) Math.floor((area.x - ox) / (tile * sx)));
+            int tx2 = Math.min(pyramid.Across(level) - 1, (int) Math.floor((area.x + area.width - ox) / (tile * sx)));
+            int ty1 = Math.max(0, (int) Math.floor((area.y - oy) / (tile * sy)));
+            int ty2 = Math.min(pyramid.Down(level) - 1, (int) Math.floor((area.y + area.height - oy) / (tile * sy)));
             
-            // Get the height and width of a cell, defalte the square slightly
-            //  so the maze if fully drawn on the panel
-            int cellwidth = (r.width - DEFLATE*2) / width;
-            int cellheight = (r.height - DEFLATE*2) / height;
-            
-            // Set the line width 
-            Graphics2D g2 = (Graphics2D) g;
-            Stroke oldStroke = g2.getStroke();
-            g2.setStroke(new BasicStroke(3));
-            
-            // For each cell
-            for (int i = 0; i < width; i++) {
-                for (int j = 0; j < height; j++) {
-                    
-                    // Draw the north wall
-                    if (maze.IsWall(i, j, Walls.North)) {
-                        g.drawLine(DEFLATE + cellwidth * i, DEFLATE + cellheight * j,
-                                DEFLATE + cellwidth * (i + 1), DEFLATE + cellheight * j);
+            Object oldInterpolation = g.getRenderingHint(RenderingHints.KEY_INTERPOLATION);
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            for (int ty = ty1; ty <= ty2; ty++) {
+                int y1 = (int) Math.floor(oy + ty * tile * sy);
+                int y2 = (int) Math.floor(oy + (ty + 1) * tile * sy);
+                for (int tx = tx1; tx <= tx2; tx++) {
+                    int x1 = (int) Math.floor(ox + tx * tile * sx);
+                    int x2 = (int) Math.floor(ox + (tx + 1) * tile * sx);
+                    BufferedImage image = pyramid.Get(level, tx, ty);
+                    if (image != null) {
+                        g.drawImage(image, x1, y1, x2, y2, 0, 0, tile, tile, null);
+                        continue;
                     }
-                    
-                    // On last row draw the south wall
-                    if (j == (height - 1)) {
-                        if (maze.IsWall(i, j, Walls.South)) {
-                            g.drawLine(DEFLATE + cellwidth * i, DEFLATE + cellheight * (j + 1),
-                                    DEFLATE + cellwidth * (i + 1), DEFLATE + cellheight * (j + 1));
-                            
+                    for (int up = 1; up <= level && (tile >> up) > 0; up++) {
+                        BufferedImage coarse = pyramid.GetHeld(level - up, tx >> up, ty >> up);
+                        if (coarse != null) {
+                            int part = tile >> up;
+                            int px = (tx & ((1 << up) - 1)) * part;
+                            int py = (ty & ((1 << up) - 1)) * part;
+                            g.drawImage(coarse, x1, y1, x2, y2, px, py, px + part, py + part, null);
+                            break;
                         }
                     }
-                    
-                    // Draw the west wall
-                    if (maze.IsWall(i, j, Walls.West)) {
-                        g.drawLine(DEFLATE + cellwidth * i, DEFLATE + cellheight * j,
-                                DEFLATE + cellwidth * i, DEFLATE + cellheight * (j + 1));
-                    }
-                    
-                    // On the last column. draw the west wall
-                    if (i == width - 1) {
-                        if (maze.IsWall(i, j, Walls.East)) {
-                            g.drawLine(DEFLATE + cellwidth * (i + 1), DEFLATE + cellheight * j,
-                                    DEFLATE + cellwidth * (i + 1), DEFLATE + cellheight * (j + 1));
-                        }
-                    }
-                    
                 }
             }
-            g2.setStroke(oldStroke);
-
-            // Draw the solution if required
-            Iterator<Point> iter = maze.iterator();
-            if (chkShowSolution.getState() && iter.hasNext()) {
-                // Draw solution in red
-                g.setColor(Color.RED);
-
-                // The maze iterator is set to iterate the solution line from exit to entrance
-                Point p1 = iter.next();
-                Point p2;
-                
-                // For each pair of point draw the line
-                while (iter.hasNext()) {
-                    p2 = iter.next();
-                    
-                    g.drawLine(DEFLATE + cellwidth * p1.x + cellwidth / 2,
-                            DEFLATE + cellheight * p1.y + cellheight / 2,
-                            DEFLATE + cellwidth * p2.x + cellwidth / 2,
-                            DEFLATE + cellheight * p2.y + cellheight / 2);
-                    
-                    p1 = p2;
+            if (oldInterpolation != null) {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, oldInterpolation);
+            }
+            pyramid.Prefetch(level, tx1 - 1, ty1 - 1, tx2 + 1, ty2 + 1);
+        }
+        
+        // Get the tile pyramid of the maze, starting a new one if the maze
+        //  has changed
+        private TilePyramid GetTiles() {
+            if (tiles == null || !tiles.IsFor(maze)) {
+                if (tiles != null) {
+                    tiles.Close();
+                }
+                if (tilePool == null) {
+                    tilePool = new ForkJoinPool();
                 }
+                tiles = new TilePyramid(maze, getBackground(), tileDirectory, TILE_CACHE, tilePool, this::TileReady);
+            }
+            return tiles;
+        }
+        
+        // Called on a pool thread as each tile is ready, the wall layer is
+        //  drawn again on the event thread, once for any number of tiles
+        private void TileReady() {
+            if (tilesReady.compareAndSet(false, true)) {
+                SwingUtilities.invokeLater(() -> {
+                    tilesReady.set(false);
+                    wallLayer.drawn = false;
+                    repaint();
+                });
+            }
+        }
+        
+        // Draw the solution in an area of the solution layer, clearing it first
+        private void DrawSolutionArea(Graphics2D g, Rectangle area) {
+            g.setComposite(AlphaComposite.Clear);
+            g.fill(area);
+            g.setComposite(AlphaComposite.SrcOver);
+            painter.DrawSolution(g, ContentBounds(), area);
+        }
+        
+        // Area of the panel covered by the solution, the whole panel if it
+        //  is not known
+        private Rectangle GetSolutionBounds() {
+            Rectangle panel = new Rectangle(0, 0, getWidth(), getHeight());
+            if (!CanDraw()) {
+                return panel;
+            }
+            return painter.SolutionBounds(ContentBounds()).intersection(panel);
+        }
+        
+        // Draw a circular maze within the clip bounds, without caching
+        void DrawCircular(Graphics g) {
+            DrawUncached((Graphics2D) g);
+        }
+        
+        // Draw a rectangular maze within the clip bounds, without caching
+        void DrawRectangular(Graphics g) {
+            DrawUncached((Graphics2D) g);
+        }
+        
+        // Draw the maze to fill the clip bounds
+        private void DrawUncached(Graphics2D g) {
+            Rectangle r = g.getClipBounds();
+            painter.setBackground(getBackground());
+            painter.DrawWalls(g, r, r);
+            if (showSolution) {
+                painter.DrawSolution(g, r, r);
             }
         }
     }
 
     // variables
     
+    // Most squares a maze can have (the largest array the VM allows)
+    static final int MAX_SQUARES = Integer.MAX_VALUE - 8;
+    // Largest mazes the 3D view is offered for
+    static final int MAX_3D_WIDTH = 25;
+    static final int MAX_3D_HEIGHT = 25;
+    static final int MAX_3D_RADIALS = 30;
+    static final int MAX_3D_LAYERS = 8;
+
     //Help text (using HTML as the control will auto-word-wrap HTML)
-    final private String RectHelp = "<HTML>A rectangular maze can have a height and width between 5 and 25";
-    final private String CircHelp = "<HTML>A circular maze can have a 15 to 30 radials and 4 to 8 layers";
+    final private String RectHelp = "<HTML>A rectangular maze can have a height and width of 5 or more. Zoom with the mouse wheel and drag to move";
+    final private String CircHelp = "<HTML>A circular maze can have 15 or more radials and 4 or more layers. Zoom with the mouse wheel and drag to move";
     
-    final static int DEFLATE = 5;
     Maze maze = new Maze();
 
     // Variables declaration - do not modify//GEN-BEGIN:variables
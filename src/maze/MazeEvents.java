@@ -0,0 +1,141 @@
+//
+// MazeEvents.java
+// Java Flight Recorder events for creating and solving mazes.
+//
+//  The events are only recorded while a flight recording with them enabled
+//    is running (java -XX:StartFlightRecording, or jcmd <pid> JFR.start), and
+//    otherwise cost no more than a check of the event's enabled flag.  They
+//    are shown under the Maze category in JDK Mission Control, and can be
+//    read with "jfr print --events maze.Generate,maze.Solve <file>".  The
+//    duration of each event is recorded by JFR.
+//
+package maze;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+//
+// Flight recorder events
+public final class MazeEvents {
+
+    private MazeEvents() {
+    }
+
+    // Shape of a maze, as recorded in the events
+    static String Shape(Maze maze) {
+        return maze.getTopology().getName();
+    }
+
+    //
+    // A maze created and solved by Maze.CreateMaze
+    @Name("maze.CreateMaze")
+    @Label("Create Maze")
+    @Category("Maze")
+    @Description("A maze generated and solved")
+    @StackTrace(false)
+    public static final class CreateMaze extends Event {
+
+        @Label("Width")
+        int width;
+
+        @Label("Height")
+        int height;
+
+        @Label("Shape")
+        String shape;
+
+        @Label("Algorithm")
+        String algorithm;
+
+        @Label("Cells Visited")
+        @Description("Squares visited while solving")
+        long cellsVisited;
+    }
+
+    //
+    // The passages of a maze carved by Maze.Generate
+    @Name("maze.Generate")
+    @Label("Generate Maze")
+    @Category("Maze")
+    @Description("The passages of a maze carved by a generation algorithm")
+    @StackTrace(false)
+    public static final class Generate extends Event {
+
+        @Label("Width")
+        int width;
+
+        @Label("Height")
+        int height;
+
+        @Label("Shape")
+        String shape;
+
+        @Label("Algorithm")
+        String algorithm;
+
+        @Label("Cells Visited")
+        @Description("Squares carved into the maze")
+        long cellsVisited;
+
+        @Label("Working Bytes")
+        @Description("Peak working storage used by the algorithm")
+        long workingBytes;
+    }
+
+    //
+    // A path found by Maze.FindSolution
+    @Name("maze.Solve")
+    @Label("Solve Maze")
+    @Category("Maze")
+    @Description("A path found between two squares")
+    @StackTrace(false)
+    public static final class Solve extends Event {
+
+        @Label("Width")
+        int width;
+
+        @Label("Height")
+        int height;
+
+        @Label("Shape")
+        String shape;
+
+        @Label("Method")
+        String method;
+
+        @Label("Cells Visited")
+        @Description("Squares (or junctions) the search reached")
+        long cellsVisited;
+
+        @Label("Path Length")
+        @Description("Squares on the path found, 0 if there is none")
+        int pathLength;
+    }
+
+    //
+    // The way out made ready for the 3D view by Maze.ResetSolution
+    @Name("maze.ResetSolution")
+    @Label("Reset Solution")
+    @Category("Maze")
+    @Description("The way out found from every square for the 3D view")
+    @StackTrace(false)
+    public static final class ResetSolution extends Event {
+
+        @Label("Width")
+        int width;
+
+        @Label("Height")
+        int height;
+
+        @Label("Shape")
+        String shape;
+
+        @Label("Cells Visited")
+        @Description("Squares searched, 0 if the way out was already known")
+        long cellsVisited;
+    }
+}
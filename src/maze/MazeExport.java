@@ -0,0 +1,407 @@
+//
+// MazeExport.java
+// Command line entry point to draw a maze as a PNG image of any size,
+//  without any user interface (AWT is only used headless).
+//
+//  The image is drawn in horizontal bands, each with the same MazePainter
+//    code as the maze view, on a pool of worker threads.  A worker draws
+//    its band, turns each row into PNG bytes (with the Sub filter) and
+//    compresses the band as a piece of one deflate stream, ending it on a
+//    byte boundary so the pieces join.  The bands are written to the file
+//    in order as they are done, and only a few more bands than there are
+//    threads are drawn ahead of the one being written, so the memory used
+//    depends on the width of the image, not its height.
+//
+//  A square is the given number of pixels across, or for a circular maze
+//    a ring is that deep.  Squares of 6 pixels or more are drawn as lines,
+//    smaller ones a pixel wide.
+//
+//  Usage: java -cp Maze.jar maze.MazeExport --out FILE.png [options]
+//    --in FILE          maze file to draw (MazeFile), otherwise one is generated
+//    --width W          width, or radials for a circular maze (default 25)
+//    --height H         height, or layers for a circular maze (default 25)
+//    --circular         generate a circular maze
+//    --algorithm A      generation algorithm (default Backtracker)
+//    --seed S           seed of the maze generated (default 0)
+//    --cell P           pixels a square (default 8, at least 2)
+//    --solution         draw the solution over the maze
+//    --dpi D            resolution recorded in the image for printing (default none)
+//    --threads T        worker threads (default number of processors)
+//    --band-rows R      rows of pixels in a band (default about 4M pixels a band)
+//
+package maze;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+//
+// Banded PNG maze exporter
+public class MazeExport {
+
+    // Pixels in a band when the rows are not given
+    static final int BAND_PIXELS = 1 << 22;
+
+    private static final byte SIGNATURE[] = {(byte) 137, 'P', 'N', 'G', '\r', '\n', 26, '\n'};
+    private static final int FILTER_SUB = 1;
+
+    private String in = null;
+    private int width = 25;
+    private int height = 25;
+    private boolean circular = false;
+    private MazeGenerator.Algorithm algorithm = MazeGenerator.Algorithm.Backtracker;
+    private long seed = 0;
+    private int cell = 8;
+    private boolean solution = false;
+    private int dpi = 0;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int bandRows = 0;
+    private String out = null;
+
+    //
+    // A band of the image, compressed
+    private static class Band {
+        final byte data[];  // the band's piece of the deflate stream
+        final long adler;  // checksum of the band's uncompressed rows
+        final long length;  // bytes of uncompressed rows
+
+        Band(byte data[], long adler, long length) {
+            this.data = data;
+            this.adler = adler;
+            this.length = length;
+        }
+    }
+
+    // Main entry point
+    public static void main(String args[]) {
+        System.setProperty("java.awt.headless", "true");
+
+        MazeExport export = new MazeExport();
+        try {
+            export.ParseArgs(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: maze.MazeExport --out FILE.png [--in FILE] [--width W] [--height H]"
+                    + " [--circular] [--algorithm A] [--seed S] [--cell P] [--solution] [--dpi D]"
+                    + " [--threads T] [--band-rows R]");
+            System.err.println("Algorithms: " + Arrays.toString(MazeGenerator.Algorithm.values()));
+            System.exit(2);
+        }
+
+        try {
+            export.Run(System.err);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+        } catch (IOException | InterruptedException | ExecutionException e) {
+            System.err.println("Export failed: " + e);
+            System.exit(1);
+        }
+    }
+
+    // Read the command line options
+    private void ParseArgs(String args[]) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("--circular")) {
+                circular = true;
+                continue;
+            }
+            if (arg.equals("--solution")) {
+                solution = true;
+                continue;
+            }
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + arg);
+            }
+            String value = args[++i];
+            try {
+                switch (arg) {
+                    case "--in":
+                        in = value;
+                        break;
+                    case "--width":
+                        width = Integer.parseInt(value);
+                        break;
+                    case "--height":
+                        height = Integer.parseInt(value);
+                        break;
+                    case "--algorithm":
+                        algorithm = MazeGenerator.Algorithm.valueOf(value);
+                        break;
+                    case "--seed":
+                        seed = Long.parseLong(value);
+                        break;
+                    case "--cell":
+                        cell = Integer.parseInt(value);
+                        break;
+                    case "--dpi":
+                        dpi = Integer.parseInt(value);
+                        break;
+                    case "--threads":
+                        threads = Integer.parseInt(value);
+                        break;
+                    case "--band-rows":
+                        bandRows = Integer.parseInt(value);
+                        break;
+                    case "--out":
+                        out = value;
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option " + arg);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid value for " + arg + ": " + value);
+            }
+        }
+        if (out == null) {
+            throw new IllegalArgumentException("No output file given");
+        }
+        if (width < 1 || height < 1 || threads < 1) {
+            throw new IllegalArgumentException("Width, height and threads must be positive");
+        }
+        if (dpi < 0 || bandRows < 0) {
+            throw new IllegalArgumentException("Resolution and band rows must not be negative");
+        }
+        if (cell < MazePainter.PIXEL_DETAIL) {
+            throw new IllegalArgumentException("Squares must be at least " + (int) MazePainter.PIXEL_DETAIL + " pixels");
+        }
+    }
+
+    // Size of the image for a maze, the squares cell pixels across, with
+    //  the space MazePainter leaves round the maze.  Circular mazes are
+    //  laid out with the centre as deep as 3 rings
+    static Rectangle ImageBounds(Maze maze, int cell) {
+        long w;
+        long h;
+        if (maze.isCircular()) {
+            w = 2L * cell * (maze.getHeight() + 3);
+            h = w;
+        } else {
+            w = (long) maze.getWidth() * cell + 2 * MazePainter.DEFLATE;
+            h = (long) maze.getHeight() * cell + 2 * MazePainter.DEFLATE;
+        }
+        // a row of PNG bytes has to fit in an array
+        if (w * 3 + 1 > Integer.MAX_VALUE - 8 || h > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Image of " + w + " by " + h + " pixels is too large");
+        }
+        return new Rectangle(0, 0, (int) w, (int) h);
+    }
+
+    // Load or generate the maze, draw it and write the file, then report
+    private void Run(PrintStream report) throws IOException, InterruptedException, ExecutionException {
+        long start = System.nanoTime();
+        Maze maze;
+        if (in != null) {
+            maze = MazeFile.Open(Paths.get(in));
+        } else {
+            maze = new MazeKey(seed, width, height, circular, algorithm).Generate();
+        }
+        long made = System.nanoTime();
+
+        Rectangle bounds = ImageBounds(maze, cell);
+        int rows = (bandRows > 0) ? bandRows : Math.max(1, BAND_PIXELS / bounds.width);
+        rows = Math.min(rows, bounds.height);
+
+        // a band's PNG bytes have to fit in an array
+        if ((long) (bounds.width * 3 + 1) * rows > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Bands of " + rows + " rows of " + bounds.width
+                    + " pixels are too large");
+        }
+        int bands = (bounds.height + rows - 1) / rows;
+
+        // build the runs and the solution index once, for all the workers
+        MazePainter shared = new MazePainter(maze);
+        shared.Prepare();
+        ThreadLocal<MazePainter> painters = ThreadLocal.withInitial(() -> {
+            MazePainter painter = new MazePainter(maze);
+            painter.setBackground(Color.WHITE);
+            painter.Share(shared);
+            return painter;
+        });
+
+        Path file = Paths.get(out).toAbsolutePath();
+        Path temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try (DataOutputStream png = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+            WriteHeader(png, bounds.width, bounds.height);
+
+            // zlib header, the bands' pieces of the stream, then the checksum
+            WriteChunk(png, "IDAT", new byte[]{0x78, (byte) 0x9C});
+            ArrayDeque<Future<Band>> ahead = new ArrayDeque<>();
+            int next = 0;
+            long adler = 1;
+            for (int b = 0; b < bands; b++) {
+                while (next < bands && ahead.size() < threads * 2) {
+                    int y = next * rows;
+                    int h = Math.min(rows, bounds.height - y);
+                    boolean last = next == bands - 1;
+                    ahead.add(pool.submit(() -> DrawBand(painters.get(), bounds, y, h, last)));
+                    next++;
+                }
+                Band band = ahead.remove().get();
+                WriteChunk(png, "IDAT", band.data);
+                adler = CombineAdler(adler, band.adler, band.length);
+            }
+            WriteChunk(png, "IDAT", new byte[]{(byte) (adler >>> 24), (byte) (adler >>> 16), (byte) (adler >>> 8),
+                    (byte) adler});
+            WriteChunk(png, "IEND", new byte[0]);
+        } catch (IOException | InterruptedException | ExecutionException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        } finally {
+            pool.shutdownNow();
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        long end = System.nanoTime();
+
+        double seconds = (end - made) / 1.0e9;
+        double pixels = (double) bounds.width * bounds.height;
+        report.printf("%dx%d %s maze, %s in %.3f s%n", maze.getWidth(), maze.getHeight(),
+                maze.isCircular() ? "circular" : "rectangular", (in != null) ? "read" : "generated",
+                (made - start) / 1.0e9);
+        report.printf("%dx%d pixel image in %d bands of %d rows on %d threads in %.3f s%n",
+                bounds.width, bounds.height, bands, rows, threads, seconds);
+        report.printf("%.1f Mpixels/s, %d bytes written to %s%n", pixels / seconds / 1.0e6, Files.size(file), file);
+    }
+
+    // Draw a band of the image, rows y to y + h - 1, and compress it as
+    //  the next piece of the deflate stream, the end of it if it is last
+    private Band DrawBand(MazePainter painter, Rectangle bounds, int y, int h, boolean last) {
+        int w = bounds.width;
+        BufferedImage image = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        Rectangle area = new Rectangle(0, y, w, h);
+        Graphics2D g = image.createGraphics();
+        g.translate(0, -y);
+        g.clip(area);
+        g.setColor(Color.WHITE);
+        g.fill(area);
+        painter.DrawWalls(g, bounds, area);
+        if (solution) {
+            painter.DrawSolution(g, bounds, area);
+        }
+        g.dispose();
+
+        // each row is the filter and the difference of each byte from
+        //  the same byte of the pixel before
+        int pixels[] = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        int stride = w * 3 + 1;
+        byte raw[] = new byte[stride * h];
+        for (int j = 0; j < h; j++) {
+            int at = j * stride;
+            raw[at++] = FILTER_SUB;
+            int before = 0;
+            for (int i = j * w, end = i + w; i < end; i++) {
+                int rgb = pixels[i];
+                raw[at++] = (byte) ((rgb >> 16) - (before >> 16));
+                raw[at++] = (byte) ((rgb >> 8) - (before >> 8));
+                raw[at++] = (byte) (rgb - before);
+                before = rgb;
+            }
+        }
+
+        Adler32 adler = new Adler32();
+        adler.update(raw);
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        deflater.setInput(raw);
+        ByteArrayOutputStream data = new ByteArrayOutputStream(raw.length / 8 + 64);
+        byte buffer[] = new byte[1 << 16];
+        if (last) {
+            deflater.finish();
+            while (!deflater.finished()) {
+                data.write(buffer, 0, deflater.deflate(buffer));
+            }
+        } else {
+            // a sync flush ends the piece on a byte boundary
+            int n;
+            do {
+                n = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                data.write(buffer, 0, n);
+            } while (n == buffer.length || !deflater.needsInput());
+        }
+        deflater.end();
+        return new Band(data.toByteArray(), adler.getValue(), raw.length);
+    }
+
+    // Write the signature and the chunks before the image data
+    private void WriteHeader(DataOutputStream png, int w, int h) throws IOException {
+        png.write(SIGNATURE);
+
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        DataOutputStream fields = new DataOutputStream(header);
+        fields.writeInt(w);
+        fields.writeInt(h);
+        fields.writeByte(8);  // bits a sample
+        fields.writeByte(2);  // RGB
+        fields.writeByte(0);  // deflate
+        fields.writeByte(0);  // filters by row
+        fields.writeByte(0);  // not interlaced
+        WriteChunk(png, "IHDR", header.toByteArray());
+
+        if (dpi > 0) {
+            int perMetre = (int) Math.round(dpi / 0.0254);
+            header.reset();
+            fields.writeInt(perMetre);
+            fields.writeInt(perMetre);
+            fields.writeByte(1);  // metres
+            WriteChunk(png, "pHYs", header.toByteArray());
+        }
+    }
+
+    // Write a chunk, its length, type, data and checksum
+    private static void WriteChunk(DataOutputStream png, String type, byte data[]) throws IOException {
+        byte name[] = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(name);
+        crc.update(data);
+        png.writeInt(data.length);
+        png.write(name);
+        png.write(data);
+        png.writeInt((int) crc.getValue());
+    }
+
+    // Checksum of two pieces of data from the checksums of each and the
+    //  length of the second, as zlib's adler32_combine
+    static long CombineAdler(long adler1, long adler2, long length2) {
+        final long base = 65521;
+        long rem = length2 % base;
+        long sum1 = adler1 & 0xFFFF;
+        long sum2 = (rem * sum1) % base;
+        sum1 += (adler2 & 0xFFFF) + base - 1;
+        sum2 += ((adler1 >> 16) & 0xFFFF) + ((adler2 >> 16) & 0xFFFF) + base - rem;
+        if (sum1 >= base) {
+            sum1 -= base;
+        }
+        if (sum1 >= base) {
+            sum1 -= base;
+        }
+        if (sum2 >= (base << 1)) {
+            sum2 -= (base << 1);
+        }
+        if (sum2 >= base) {
+            sum2 -= base;
+        }
+        return sum1 | (sum2 << 16);
+    }
+}
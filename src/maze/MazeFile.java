@@ -0,0 +1,258 @@
+//
+// MazeFile.java
+// Reads and writes mazes in a compact, versioned binary file format.
+//
+//  The file is a 64 byte header followed by the walls of every square, four
+//    bits per square (two squares per byte, row-major, the even square in
+//    the low half), then optionally the solution.  All values are big-endian.
+//
+//    offset  size  field
+//         0     4  magic "MAZE"
+//         4     2  version (1, or 2 for a torus)
+//         6     2  flags (1 = circular, 2 = solution present, 4 = torus)
+//         8     4  width
+//        12     4  height
+//        16     4  entrance (x position on the bottom row)
+//        20     4  exit (x position on the top row)
+//        24     8  seed
+//        32     4  generation algorithm (ordinal, -1 if unknown)
+//        36     4  solution length (squares)
+//        40    24  reserved (zero)
+//        64     -  walls, (width * height + 1) / 2 bytes
+//         -     -  solution, 4 byte square indexes from exit to entrance
+//
+//  Version 2 only adds the torus flag, so other mazes are still written as
+//    version 1 for readers which know no more.  Unknown flags, or circular
+//    and torus together, mark a damaged file.
+//
+//  Files are read through FileChannel.map, and the maze returned uses the
+//    mapped file as its map, so opening a maze takes the same time whatever
+//    its size and walls are read straight from the file by IsWall.  Changes
+//    to a maze opened writable are saved with Force(); do not Write a maze
+//    over the file it is mapped from.
+//
+package maze;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+//
+// Maze file reader/writer
+public final class MazeFile {
+
+    public static final int MAGIC = 0x4D415A45;  // "MAZE"
+    public static final int VERSION = 2;  // newest version read
+    static final int TORUS_VERSION = 2;  // first version with the torus flag
+    public static final int HEADER_SIZE = 64;
+
+    static final int FLAG_CIRCULAR = 1;
+    static final int FLAG_SOLUTION = 2;
+    static final int FLAG_TORUS = 4;
+    static final int KNOWN_FLAGS = FLAG_CIRCULAR | FLAG_SOLUTION | FLAG_TORUS;
+
+    private MazeFile() {
+    }
+
+    // Open a maze file read only
+    public static Maze Open(Path file) throws IOException {
+        return Open(file, false);
+    }
+
+    // Open a maze file, mapping it read/write if the maze is to be changed.
+    //  The walls are not read, the maze map is the mapped file.
+    public static Maze Open(Path file, boolean writable) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = writable
+                ? FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Not a maze file, or too large to map: " + file);
+            }
+            buffer = channel.map(writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY,
+                    0, channel.size());
+        }
+
+        if (buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a maze file: " + file);
+        }
+        int version = buffer.getShort(4);
+        if (version > VERSION) {
+            throw new IOException("Unsupported maze file version " + version + ": " + file);
+        }
+        int flags = buffer.getShort(6);
+        int width = buffer.getInt(8);
+        int height = buffer.getInt(12);
+        int entrance = buffer.getInt(16);
+        int exit = buffer.getInt(20);
+        long seed = buffer.getLong(24);
+        int algorithm = buffer.getInt(32);
+        int solutionLength = buffer.getInt(36);
+
+        long cells = (long) width * height;
+        long wallBytes = NibbleCellStore.BytesFor(cells);
+        long expected = HEADER_SIZE + wallBytes + (((flags & FLAG_SOLUTION) != 0) ? 4L * solutionLength : 0);
+        boolean badFlags = (flags & ~KNOWN_FLAGS) != 0
+                || (flags & (FLAG_CIRCULAR | FLAG_TORUS)) == (FLAG_CIRCULAR | FLAG_TORUS)
+                || ((flags & FLAG_TORUS) != 0 && version < TORUS_VERSION);
+        if (version < 1 || badFlags || width < 1 || height < 1 || cells > Integer.MAX_VALUE || solutionLength < 0
+                || entrance < 0 || entrance >= width || exit < 0 || exit >= width
+                || buffer.capacity() < expected) {
+            throw new IOException("Maze file is damaged: " + file);
+        }
+
+        Maze maze = new Maze(seed);
+        Topology topology = ((flags & FLAG_TORUS) != 0) ? Topology.TORUS
+                : ((flags & FLAG_CIRCULAR) != 0) ? Topology.CIRCULAR : Topology.RECTANGULAR;
+        maze.Restore(width, height, topology, entrance, exit,
+                new NibbleCellStore(buffer, HEADER_SIZE, (int) cells));
+        if (algorithm >= 0 && algorithm < MazeGenerator.Algorithm.values().length) {
+            maze.setGenerator(MazeGenerator.Algorithm.values()[algorithm].Create());
+        }
+
+        if ((flags & FLAG_SOLUTION) != 0) {
+            int solution[] = new int[solutionLength];
+            int pos = (int) (HEADER_SIZE + wallBytes);
+            for (int i = 0; i < solutionLength; i++) {
+                solution[i] = buffer.getInt(pos + i * 4);
+                if (solution[i] < 0 || solution[i] >= cells) {
+                    throw new IOException("Maze file is damaged: " + file);
+                }
+            }
+            maze.SetSolutionCells(solution);
+        }
+        return maze;
+    }
+
+    // Write a maze to a file, without its solution
+    public static void Write(Maze maze, Path file) throws IOException {
+        Write(maze, file, false);
+    }
+
+    // Write a maze to a file, with its solution if required
+    public static void Write(Maze maze, Path file, boolean withSolution) throws IOException {
+        int cells = maze.getWidth() * maze.getHeight();
+        int solution[] = withSolution ? maze.GetSolutionCells() : new int[0];
+        long wallBytes = NibbleCellStore.BytesFor(cells);
+        long size = HEADER_SIZE + wallBytes + 4L * solution.length;
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+
+            WriteHeader(buffer, maze.getWidth(), maze.getHeight(), maze.getTopology(), maze.getEntrancePos(),
+                    maze.getExitPos(), maze.getSeed(), maze.getGenerator().getAlgorithm(),
+                    withSolution ? solution.length : -1);
+
+            CellStore store = maze.getStore();
+            if (store instanceof NibbleCellStore) {
+                // already in the file layout, copy the bytes as they are
+                NibbleCellStore nibbles = (NibbleCellStore) store;
+                ByteBuffer from = nibbles.getBuffer().duplicate();
+                from.limit((int) (nibbles.getOffset() + wallBytes)).position(nibbles.getOffset());
+                buffer.position(HEADER_SIZE);
+                buffer.put(from);
+            } else {
+                for (int i = 0; i < cells; i += 2) {
+                    int low = store.Get(i) & NibbleCellStore.WALL_BITS;
+                    int high = (i + 1 < cells) ? store.Get(i + 1) & NibbleCellStore.WALL_BITS : 0;
+                    buffer.put(HEADER_SIZE + (i >> 1), (byte) (low | (high << 4)));
+                }
+            }
+
+            int pos = (int) (HEADER_SIZE + wallBytes);
+            for (int cell : solution) {
+                buffer.putInt(pos, cell);
+                pos += 4;
+            }
+            buffer.force();
+        }
+    }
+
+    // Write any changes made to a maze opened writable back to its file
+    public static void Force(Maze maze) {
+        CellStore store = maze.getStore();
+        if (store instanceof NibbleCellStore && ((NibbleCellStore) store).getBuffer() instanceof MappedByteBuffer) {
+            ((MappedByteBuffer) ((NibbleCellStore) store).getBuffer()).force();
+        }
+    }
+
+    // Fill in the header at the start of a buffer, solutionLength is -1 if
+    //  there is no solution
+    private static void WriteHeader(ByteBuffer buffer, int width, int height, Topology topology, int entrance,
+            int exit, long seed, MazeGenerator.Algorithm algorithm, int solutionLength) {
+        int flags = ((topology == Topology.CIRCULAR) ? FLAG_CIRCULAR : 0) | ((topology == Topology.TORUS) ? FLAG_TORUS : 0)
+                | ((solutionLength >= 0) ? FLAG_SOLUTION : 0);
+
+        buffer.putInt(0, MAGIC);
+        buffer.putShort(4, (short) ((topology == Topology.TORUS) ? TORUS_VERSION : 1));
+        buffer.putShort(6, (short) flags);
+        buffer.putInt(8, width);
+        buffer.putInt(12, height);
+        buffer.putInt(16, entrance);
+        buffer.putInt(20, exit);
+        buffer.putLong(24, seed);
+        buffer.putInt(32, (algorithm == null) ? -1 : algorithm.ordinal());
+        buffer.putInt(36, Math.max(solutionLength, 0));
+        for (int i = 40; i < HEADER_SIZE; i++) {
+            buffer.put(i, (byte) 0);
+        }
+    }
+
+    //
+    // Writes a maze file row by row as it is generated by
+    //  EllerGenerator.Stream, so the maze is never held in memory.  The file
+    //  is written sequentially, so it is not limited to the size which can
+    //  be mapped.
+    public static class RowWriter implements RowSink {
+
+        private final Path file;
+        private final long seed;
+        private DataOutputStream out;
+        private int pending = -1;  // wall bits of a square waiting for its pair, -1 if none
+
+        public RowWriter(Path file, long seed) {
+            this.file = file;
+            this.seed = seed;
+        }
+
+        @Override
+        public void Begin(int width, int height, boolean circular, int entrance, int exit) throws IOException {
+            OutputStream stream = Files.newOutputStream(file);
+            out = new DataOutputStream(new BufferedOutputStream(stream, 1 << 16));
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            WriteHeader(header, width, height, circular ? Topology.CIRCULAR : Topology.RECTANGULAR, entrance, exit, seed, MazeGenerator.Algorithm.Eller, -1);
+            out.write(header.array());
+        }
+
+        @Override
+        public void Row(int y, byte walls[]) throws IOException {
+            for (byte square : walls) {
+                int bits = square & NibbleCellStore.WALL_BITS;
+                if (pending < 0) {
+                    pending = bits;
+                } else {
+                    out.write(pending | (bits << 4));
+                    pending = -1;
+                }
+            }
+        }
+
+        @Override
+        public void End() throws IOException {
+            if (pending >= 0) {
+                out.write(pending);
+                pending = -1;
+            }
+            out.close();
+        }
+    }
+}
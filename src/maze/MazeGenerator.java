@@ -0,0 +1,68 @@
+//
+// MazeGenerator.java
+// Defines an algorithm which carves the passages of a maze.
+//
+//  The generator is given a maze map with every wall in place and every
+//    square marked as available, and must break walls (Maze.Carve) until
+//    every square is connected by exactly one path (a perfect maze).
+//    On a circular maze the far east and far west squares are neighbours.
+//
+package maze;
+
+import java.util.Random;
+
+//
+// Maze generation algorithm
+public interface MazeGenerator {
+
+    // The generation algorithms available
+    public enum Algorithm {
+        Backtracker,
+        Kruskal,
+        Prim,
+        Wilson,
+        AldousBroder,
+        BinaryTree,
+        Sidewinder,
+        Eller,
+        Tiled;
+
+        // Create a generator using this algorithm
+        public MazeGenerator Create() {
+            switch (this) {
+                case Kruskal:
+                    return new KruskalGenerator();
+                case Prim:
+                    return new PrimGenerator();
+                case Wilson:
+                    return new WilsonGenerator();
+                case AldousBroder:
+                    return new AldousBroderGenerator();
+                case BinaryTree:
+                    return new BinaryTreeGenerator();
+                case Sidewinder:
+                    return new SidewinderGenerator();
+                case Eller:
+                    return new EllerGenerator();
+                case Tiled:
+                    return new TiledGenerator();
+                default:
+                    return new BacktrackerGenerator();
+            }
+        }
+    };
+
+    // The algorithm this generator implements
+    Algorithm getAlgorithm();
+
+    // Carve the passages of the maze
+    void Generate(Maze maze, Random rand);
+
+    // Peak bytes of working storage used by the last generation
+    long getWorkingBytes();
+
+    // Deepest the path stack went in the last generation, for algorithms which use one
+    default int getPeakDepth() {
+        return 0;
+    }
+}
@@ -0,0 +1,85 @@
+//
+// MazeKey.java
+// Identifies a maze by everything needed to generate it again: the seed,
+//  the size, the shape and the generation algorithm.
+//
+package maze;
+
+import java.util.Objects;
+
+//
+// Maze key
+public final class MazeKey {
+
+    private final long seed;
+    private final int width;
+    private final int height;
+    private final boolean circular;
+    private final MazeGenerator.Algorithm algorithm;
+
+    public MazeKey(long seed, int width, int height, boolean circular, MazeGenerator.Algorithm algorithm) {
+        this.seed = seed;
+        this.width = width;
+        this.height = height;
+        this.circular = circular;
+        this.algorithm = algorithm;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public boolean isCircular() {
+        return circular;
+    }
+
+    public MazeGenerator.Algorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    // Generate and solve the maze this key describes.  The same key always 
+    //  gives the same maze
+    public Maze Generate() {
+        Maze maze = new Maze(seed);
+        maze.setSize(width, height);
+        maze.setGenerator(algorithm.Create());
+        maze.CreateMaze(circular);
+        return maze;
+    }
+
+    // A name for the key which can be used as a file name
+    public String getName() {
+        return String.format("%s-%dx%d-%s-%016x", algorithm, width, height, circular ? "circ" : "rect", seed);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof MazeKey)) {
+            return false;
+        }
+        MazeKey other = (MazeKey) obj;
+        return seed == other.seed && width == other.width && height == other.height
+                && circular == other.circular && algorithm == other.algorithm;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(seed, width, height, circular, algorithm);
+    }
+
+    @Override
+    public String toString() {
+        return getName();
+    }
+}
@@ -0,0 +1,794 @@
+//
+// MazePainter.java
+// Draws a maze, or the part of one inside an area, with Java2D at any scale.
+//
+//  Only the squares which reach into the area being drawn are visited.  How
+//    a square of a rectangular maze is drawn depends on its size: as lines,
+//    from the runs of a WallRuns so each straight wall is one line, as
+//    single pixels written straight into an image when it is small, or
+//    when it is smaller than a couple of pixels as the density of walls,
+//    from a WallDensity built once for the maze.  The solution is drawn from
+//    a SolutionIndex, so only the steps near the area are visited, with
+//    straight stretches merged into one line.
+//
+//  A circular maze is drawn from the runs of walls too, on its grid of
+//    sectors and rings, so a wall along a ring is one arc, with the angles
+//    round the rings taken from a table kept for the number of sectors.
+//    Its solution is drawn from the index in the same way, on that grid.
+//
+//  The painter keeps the runs, the density, the index and an image to
+//    write pixels into between calls, so it is not thread safe; each thread
+//    drawing a maze uses a painter of its own.  The runs and the index can
+//    be built once and shared between the painters.
+//
+package maze;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.Stroke;
+import java.awt.geom.Arc2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import maze.Maze.Walls;
+
+//
+// Java2D maze drawing
+public class MazePainter {
+
+    // Squares smaller than LINE_DETAIL pixels are drawn as pixels rather
+    //  than lines, and smaller than PIXEL_DETAIL as the density of walls
+    static final double LINE_DETAIL = 6.0;
+    static final double PIXEL_DETAIL = 2.0;
+
+    // Space left round a rectangular maze drawn in a rectangle
+    static final int DEFLATE = 5;
+
+    // Largest maze whose wall runs are kept, about 5 bytes a square;
+    //  runs of larger mazes are found for the area being drawn each time
+    static final int RUN_SQUARES = 1 << 22;
+
+    private Maze maze;
+    private Color background = Color.WHITE;
+
+    // Wall runs, wall density and solution index of the maze, and an
+    //  image pixels are written into
+    private WallRuns runs = null;
+    private double angles[][] = null;  // cosine and sine of angles round a circular maze
+    private int angleSteps = 0;  // angles to a sector
+    private double lastAngles[][] = null;  // the table used before, as the walls and
+    private int lastAngleSteps = 0;  //  the solution may want different steps
+    private WallDensity density = null;
+    private SolutionIndex solutionIndex = null;
+    private BufferedImage pixels = null;
+
+    // Constructor - draw the given maze
+    public MazePainter(Maze maze) {
+        this.maze = maze;
+    }
+
+    // Set the maze to draw
+    public void setMaze(Maze maze) {
+        this.maze = maze;
+    }
+
+    public Maze getMaze() {
+        return maze;
+    }
+
+    // Set the colour drawn behind walls written as pixels
+    public void setBackground(Color background) {
+        this.background = background;
+    }
+
+    // Build the wall runs, if the maze is small enough to keep them, and
+    //  the solution index now rather than when they are first drawn
+    public void Prepare() {
+        if ((long) maze.getWidth() * maze.getHeight() <= RUN_SQUARES) {
+            GetWallRuns(0, 0, maze.getWidth() - 1, maze.getHeight() - 1);
+        }
+        GetSolutionIndex();
+    }
+
+    // Use wall density levels built elsewhere for the maze, which are
+    //  only read, so painters on different threads can share them
+    void setDensity(WallDensity density) {
+        this.density = density;
+    }
+
+    // Use the wall runs and solution index another painter has built for
+    //  the same maze.  They are only read once built, so painters drawing
+    //  on different threads can share them
+    public void Share(MazePainter from) {
+        runs = from.runs;
+        solutionIndex = from.solutionIndex;
+    }
+
+    // Draw the walls of the maze laid out in bounds, those which reach into
+    //  the area.  The area is not cleared first
+    public void DrawWalls(Graphics2D g, Rectangle bounds, Rectangle area) {
+        if (!maze.isCircular()) {
+            DrawRectangularWalls(g, new RectLayout(maze, bounds), area);
+        } else {
+            DrawCircularWalls(g, bounds, area);
+        }
+    }
+
+    // Draw the solution of the maze laid out in bounds, the steps which
+    //  reach into the area
+    public void DrawSolution(Graphics2D g, Rectangle bounds, Rectangle area) {
+        if (!maze.isCircular()) {
+            DrawRectangularSolution(g, new RectLayout(maze, bounds), area);
+        } else {
+            DrawCircularSolution(g, bounds, area);
+        }
+    }
+
+    // Area covered by the solution of the maze laid out in bounds
+    public Rectangle SolutionBounds(Rectangle bounds) {
+        if (maze.isCircular()) {
+            return CircularSolutionBounds(new CircularLayout(maze, bounds));
+        }
+        return RectangularSolutionBounds(new RectLayout(maze, bounds));
+    }
+
+    // Get the image pixels are written into, at least the given size
+    private int[] GetPixels(int w, int h) {
+        if (pixels == null || pixels.getWidth() < w || pixels.getHeight() < h) {
+            int pw = (pixels == null) ? w : Math.max(w, pixels.getWidth());
+            int ph = (pixels == null) ? h : Math.max(h, pixels.getHeight());
+            pixels = new BufferedImage(pw, ph, BufferedImage.TYPE_INT_RGB);
+        }
+        return ((DataBufferInt) pixels.getRaster().getDataBuffer()).getData();
+    }
+
+    //
+    // Sizes used to draw a circular maze in a rectangle
+    private static class CircularLayout {
+
+        static final double PAD = 4.0;  // pixels a line may reach past its place
+        final int rad_offset = 8;
+        final int width;  // sectors and rings of the maze
+        final int height;
+        final Rectangle r;
+        final int left;  // top left of the outer ring's bounds
+        final int top;
+        final double sect_angle;  // angle of a map sector
+        final int x_centre;  // the centre point
+        final int y_centre;
+        final int x_sect;  // width of a layer
+        final int y_sect;
+
+        CircularLayout(Maze maze, Rectangle bounds) {
+            width = maze.getWidth();
+            height = maze.getHeight();
+
+            // Reduce the size of the rectangle (as that the maze is
+            //  clearly fully shown)
+            r = new Rectangle(bounds);
+            r.x += rad_offset;
+            r.y += rad_offset;
+            r.height -= rad_offset * 2;
+            r.width -= rad_offset * 2;
+            left = r.x;
+            top = r.y;
+
+            sect_angle = 360.0 / maze.getWidth();
+            x_centre = r.width / 2 + rad_offset;
+            y_centre = r.height / 2 + rad_offset;
+
+            int centre_rad = 3;  // The centre is equivalent to 3 layers
+            x_sect = x_centre / (centre_rad + maze.getHeight());
+            y_sect = y_centre / (centre_rad + maze.getHeight());
+        }
+
+        // Rings and sectors which reach into the area, as first ring, last
+        //  ring, first sector and number of sectors.  The first sector may
+        //  be negative, the sectors wrap round
+        int[] Reach(Rectangle area) {
+            // Nearest and furthest the area comes to the centre, with the
+            //  corners as the rings see them
+            double u1 = U(area.x - PAD);
+            double u2 = U(area.x + area.width + PAD);
+            double v1 = V(area.y + area.height + PAD);
+            double v2 = V(area.y - PAD);
+            double nearU = (u1 > 0) ? u1 : (u2 < 0) ? -u2 : 0;
+            double nearV = (v1 > 0) ? v1 : (v2 < 0) ? -v2 : 0;
+            double near = Math.hypot(nearU, nearV);
+            double far = Math.hypot(Math.max(-u1, u2), Math.max(-v1, v2));
+
+            // Rings which reach into the area, ring j lies between
+            //  r.width / 2 - j * x_sect and one layer in
+            int firstRing = 0;
+            int lastRing = height - 1;
+            if (x_sect > 0) {
+                firstRing = Math.max(0, (int) Math.floor((r.width / 2.0 - x_sect - far) / x_sect));
+                lastRing = Math.min(height - 1, (int) Math.floor((r.width / 2.0 - near) / x_sect));
+            }
+
+            // Sectors which reach into the area, every sector if it is near
+            //  the centre, otherwise those between the angles of its corners
+            int firstSector = 0;
+            int sectors = width;
+            if (near > x_sect * 3 + PAD) {
+                double mid = Math.toDegrees(Math.atan2((v1 + v2) / 2, (u1 + u2) / 2));
+                double lo = 0;
+                double hi = 0;
+                for (double corner[] : new double[][]{{u1, v1}, {u1, v2}, {u2, v1}, {u2, v2}}) {
+                    double d = Math.toDegrees(Math.atan2(corner[1], corner[0])) - mid;
+                    d -= 360.0 * Math.floor((d + 180.0) / 360.0);
+                    lo = Math.min(lo, d);
+                    hi = Math.max(hi, d);
+                }
+                firstSector = (int) Math.floor((mid + lo) / sect_angle) - 1;
+                sectors = Math.min(width, (int) Math.floor((mid + hi) / sect_angle) + 2 - firstSector);
+            }
+
+            return new int[]{firstRing, lastRing, firstSector, sectors};
+        }
+
+        // Horizontal distance of a point from the centre
+        double U(double x) {
+            return x - (x_centre + r.x - rad_offset);
+        }
+
+        // Vertical distance of a point from the centre, upwards, scaled
+        //  so the rings are circles
+        double V(double y) {
+            return ((y_centre + r.y - rad_offset) - y) * r.width / Math.max(1, r.height);
+        }
+    }
+
+    // Draw the walls of a circular maze laid out in bounds, only the
+    //  rings and sectors which reach into the area
+    void DrawCircularWalls(Graphics2D g, Rectangle bounds, Rectangle area) {
+        g.setColor(Color.BLACK);
+
+        // Get the width and height
+        int width = maze.getWidth();
+        int height = maze.getHeight();
+
+        CircularLayout c = new CircularLayout(maze, bounds);
+        Rectangle r = c.r;
+        int left = c.left;
+        int top = c.top;
+        double sect_angle = c.sect_angle;
+        int x_centre = c.x_centre + bounds.x;
+        int y_centre = c.y_centre + bounds.y;
+        int x_sect = c.x_sect;
+        int y_sect = c.y_sect;
+
+        // Rings and sectors which reach into the area
+        int reach[] = c.Reach(area);
+        int firstRing = reach[0];
+        int lastRing = reach[1];
+        int firstSector = reach[2];
+        int sectors = reach[3];
+
+        // set the line width, thinner when the rings are close together
+        //  so they stay apart, and a pixel when they are closer than
+        //  lines of squares are drawn
+        boolean thin = x_sect < LINE_DETAIL;
+        Stroke oldStroke = g.getStroke();
+        g.setStroke(new BasicStroke(thin ? 1.0f : (float) Math.min(5.0, x_sect / 2.0)));
+
+        // The walls as runs on the grid of sectors and rings, so the
+        //  north walls along a ring are one arc and the west walls along
+        //  a radial one line, only the part of each in the sectors being
+        //  drawn.  The sectors are split where they wrap round, into at
+        //  most two ranges.  Positions round the rings come from a table
+        //  of angles worked out once, steps of them to a sector.  Wide
+        //  arcs are drawn as arcs, but a pixel wide line costs less drawn
+        //  through the points of the table, close enough to look round
+        double half = r.width / 2.0;
+        double step = (half > 0.25) ? 2 * Math.acos(1 - 0.25 / half) : Math.PI;  // a quarter pixel inside the ring
+        int steps = thin ? Math.max(1, (int) Math.ceil(Math.toRadians(sect_angle) / step)) : 1;
+        double table[][] = GetAngles(width, steps);
+        double cos[] = table[0];
+        double sin[] = table[1];
+        double x_middle = left + half;  // centre of the rings
+        double y_middle = top + r.height / 2.0;
+        int xs[] = new int[thin ? Math.min(sectors, width) * steps + 1 : 0];
+        int ys[] = new int[xs.length];
+        Arc2D.Double arc = new Arc2D.Double(Arc2D.OPEN);
+        for (int s = 0; s < sectors; ) {
+            int first = Math.floorMod(firstSector + s, width);
+            int end = Math.min(width - 1, first + (sectors - s) - 1);
+            s += end - first + 1;
+
+            WallRuns walls = GetWallRuns(first, firstRing, end, lastRing);
+            walls.VisitAcross(first, firstRing, end, lastRing + 1, (j, from, to) -> {
+                from = Math.max(from, first);
+                to = Math.min(to, end + 1);
+                if (!thin) {
+                    arc.setArc(j * x_sect + left, j * y_sect + top,
+                            r.width - (2 * j * x_sect), r.height - (2 * j * y_sect),
+                            from * sect_angle, (to - from) * sect_angle, Arc2D.OPEN);
+                    g.draw(arc);
+                    return;
+                }
+                double xrad = half - j * x_sect;
+                double yrad = r.height / 2.0 - j * y_sect;
+                int n = 0;
+                for (int k = from * steps; k <= to * steps; k++, n++) {
+                    xs[n] = (int) Math.round(x_middle + cos[k] * xrad);
+                    ys[n] = (int) Math.round(y_middle - sin[k] * yrad);
+                }
+                g.drawPolyline(xs, ys, n);
+            });
+            walls.VisitDown(first, firstRing, end + 1, lastRing, (i, from, to) -> {
+                int xrad1 = r.width / 2 - (from * x_sect);
+                int xrad2 = r.width / 2 - (to * x_sect);
+                int yrad1 = r.height / 2 - (from * y_sect);
+                int yrad2 = r.height / 2 - (to * y_sect);
+
+                int k = i * steps;
+                int x1 = (int) (cos[k] * xrad1) + x_centre;
+                int x2 = (int) (cos[k] * xrad2) + x_centre;
+                int y1 = -(int) (sin[k] * yrad1) + y_centre;
+                int y2 = -(int) (sin[k] * yrad2) + y_centre;
+                g.drawLine(x1, y1, x2, y2);
+            });
+        }
+        g.setStroke(oldStroke);
+    }
+
+    // Get the cosine and sine of angles evenly spaced round a circular
+    //  maze with the given number of sectors, steps of them to a sector,
+    //  worked out once.  Angle k is k / steps sectors round, so radial i
+    //  is angle i * steps, and the last is all the way round.  The table
+    //  used before is kept too, so the walls and the solution can each
+    //  have their own without working them out every time
+    private double[][] GetAngles(int width, int steps) {
+        if (lastAngles != null && lastAngleSteps == steps && lastAngles[0].length == width * steps + 1) {
+            double table[][] = lastAngles;
+            lastAngles = angles;
+            lastAngleSteps = angleSteps;
+            angles = table;
+            angleSteps = steps;
+        }
+        if (angles == null || angleSteps != steps || angles[0].length != width * steps + 1) {
+            double sect_angle = 360.0 / width;
+            double deg_to_rad = (2.0 * Math.PI) / 360.0;
+            double table[][] = new double[2][width * steps + 1];
+            for (int k = 0; k <= width * steps; k++) {
+                double angle = (k * sect_angle / steps) * deg_to_rad;
+                table[0][k] = Math.cos(angle);
+                table[1][k] = Math.sin(angle);
+            }
+            lastAngles = angles;
+            lastAngleSteps = angleSteps;
+            angles = table;
+            angleSteps = steps;
+        }
+        return angles;
+    }
+
+    // Draw the solution of a circular maze laid out in bounds, the steps
+    //  which reach into the area
+    void DrawCircularSolution(Graphics2D g, Rectangle bounds, Rectangle area) {
+        int width = maze.getWidth();
+
+        CircularLayout c = new CircularLayout(maze, bounds);
+        Rectangle r = c.r;
+        int left = c.left;
+        int top = c.top;
+        double sect_angle = c.sect_angle;
+        int x_centre = c.x_centre + bounds.x;
+        int y_centre = c.y_centre + bounds.y;
+        int x_sect = c.x_sect;
+        int y_sect = c.y_sect;
+
+        // The middle of sector i is angle i * 2 + 1 of a table of two steps
+        //  to a sector, and arcs are drawn from and to the exact angles
+        double table[][] = GetAngles(width, 2);
+        double cos[] = table[0];
+        double sin[] = table[1];
+        Arc2D.Double arc = new Arc2D.Double(Arc2D.OPEN);
+
+        // draw solution in red
+        g.setColor(Color.RED);
+
+        // The steps of the index near the rings and sectors which reach
+        //  into the area, the sectors split where they wrap round like the
+        //  walls.  A step across the wrap is indexed at one end only, so
+        //  the sectors are taken one wider each side, and all of them at
+        //  once if the blocks of the two ranges meet
+        int reach[] = c.Reach(area);
+        int firstRing = reach[0];
+        int lastRing = reach[1];
+        int firstSector = Math.floorMod(reach[2] - 1, width);
+        int sectors = Math.min(width, reach[3] + 2);
+        int lastSector = Math.floorMod(firstSector + sectors - 1, width);
+        if (lastSector < firstSector
+                && (firstSector - 1) / SolutionIndex.BLOCK <= (lastSector + 1) / SolutionIndex.BLOCK) {
+            sectors = width;
+        }
+        SolutionIndex index = GetSolutionIndex();
+        SolutionPath.StepVisitor visitor = (px1, py1, px2, py2) -> {
+            // Is this a line going inward/outward or around the maze
+            if (px1 == px2) {
+                // Inward/Outward
+                // Calculate the line co-ordinates
+                int xrad1 = r.width / 2 - (Math.max(py1, py2) * x_sect) + x_sect / 2;
+                int xrad2 = xrad1 - x_sect;
+                int yrad1 = r.height / 2 - (Math.max(py1, py2) * y_sect) + y_sect / 2;
+                int yrad2 = yrad1 - y_sect;
+                int k = px1 * 2 + 1;
+
+                int x1 = (int) (cos[k] * xrad1) + x_centre;
+                int x2 = (int) (cos[k] * xrad2) + x_centre;
+                int y1 = -(int) (sin[k] * yrad1) + y_centre;
+                int y2 = -(int) (sin[k] * yrad2) + y_centre;
+
+                g.drawLine(x1, y1, x2, y2);
+            } else {
+                // Line going around the maze
+                // handle wpossible rap around
+                int base_angle = Math.min(px1, px2);
+                if (Math.max(px1,px2) == width -1 && base_angle == 0){
+                        base_angle = -1;
+                }
+
+                arc.setArc(py1 * x_sect + left + x_sect / 2,
+                        py1 * y_sect + top + y_sect / 2,
+                        r.width - (2 * py1 * x_sect) - x_sect,
+                        r.height - (2 * py1 * y_sect) - y_sect,
+                        (base_angle + 0.5) * sect_angle, sect_angle, Arc2D.OPEN);
+                g.draw(arc);
+                }
+        };
+        for (int s = 0; s < sectors; ) {
+            int first = (sectors == width) ? 0 : Math.floorMod(firstSector + s, width);
+            int end = Math.min(width - 1, first + (sectors - s) - 1);
+            s += end - first + 1;
+            index.VisitSteps(first, firstRing, end, lastRing, visitor);
+        }
+    }
+
+    //
+    // Position of the squares of a rectangular maze drawn in a rectangle
+    static class RectLayout {
+
+        final int width;  // squares
+        final int height;
+        final double left;  // top left corner of the maze
+        final double top;
+        final double cellwidth;
+        final double cellheight;
+
+        RectLayout(Maze maze, Rectangle bounds) {
+            width = maze.getWidth();
+            height = maze.getHeight();
+
+            // Deflate the rectangle slightly so the maze is fully drawn
+            left = bounds.x + DEFLATE;
+            top = bounds.y + DEFLATE;
+            cellwidth = (double) (bounds.width - DEFLATE * 2) / width;
+            cellheight = (double) (bounds.height - DEFLATE * 2) / height;
+        }
+
+        // The maze with its top left corner at a point, and squares of a given size
+        RectLayout(Maze maze, double left, double top, double cellwidth, double cellheight) {
+            width = maze.getWidth();
+            height = maze.getHeight();
+            this.left = left;
+            this.top = top;
+            this.cellwidth = cellwidth;
+            this.cellheight = cellheight;
+        }
+
+        // Pixel position of the left edge of a column
+        int X(int i) {
+            return (int) Math.floor(left + cellwidth * i);
+        }
+
+        // Pixel position of the top edge of a row
+        int Y(int j) {
+            return (int) Math.floor(top + cellheight * j);
+        }
+
+        // Pixel position of the centre of a column
+        int CentreX(int i) {
+            return (int) Math.floor(left + cellwidth * (i + 0.5));
+        }
+
+        // Pixel position of the centre of a row
+        int CentreY(int j) {
+            return (int) Math.floor(top + cellheight * (j + 0.5));
+        }
+
+        // Size of a square on the panel, in pixels
+        double SquarePixels() {
+            return Math.min(cellwidth, cellheight);
+        }
+
+        // Columns which can have walls in an area, a square either side
+        //  to allow for the width of the lines
+        int FirstColumn(Rectangle area) {
+            return Clamp((int) Math.floor((area.x - left) / cellwidth) - 1, width);
+        }
+
+        int LastColumn(Rectangle area) {
+            return Clamp((int) Math.floor((area.x + area.width - left) / cellwidth) + 1, width);
+        }
+
+        // Rows which can have walls in an area
+        int FirstRow(Rectangle area) {
+            return Clamp((int) Math.floor((area.y - top) / cellheight) - 1, height);
+        }
+
+        int LastRow(Rectangle area) {
+            return Clamp((int) Math.floor((area.y + area.height - top) / cellheight) + 1, height);
+        }
+
+        private static int Clamp(int i, int size) {
+            return Math.max(0, Math.min(i, size - 1));
+        }
+    }
+
+    // Draw the walls of the squares of a rectangular maze in an area,
+    //  in the detail their size on the panel allows
+    void DrawRectangularWalls(Graphics2D g, RectLayout layout, Rectangle area) {
+        double square = layout.SquarePixels();
+        if (square < PIXEL_DETAIL) {
+            DrawWallDensity(g, layout, area);
+            return;
+        }
+        if (square < LINE_DETAIL) {
+            DrawWallPixels(g, layout, area);
+            return;
+        }
+
+        g.setColor(Color.BLACK);
+
+        // Set the line width, thinner for small squares
+        Stroke oldStroke = g.getStroke();
+        g.setStroke(new BasicStroke((float) Math.min(3.0, square / 4)));
+
+        // The runs of wall in the area, one line each.  A run of the
+        //  bottom row is on the line below it, and of the last column on
+        //  the line to its right
+        int firstRow = layout.FirstRow(area);
+        int firstColumn = layout.FirstColumn(area);
+        int lastRow = layout.LastRow(area);
+        int lastColumn = layout.LastColumn(area);
+        WallRuns walls = GetWallRuns(firstColumn, firstRow, lastColumn, lastRow);
+        walls.VisitAcross(firstColumn, firstRow, lastColumn, lastRow + 1,
+                (j, from, to) -> g.drawLine(layout.X(from), layout.Y(j), layout.X(to), layout.Y(j)));
+        walls.VisitDown(firstColumn, firstRow, lastColumn + 1, lastRow,
+                (i, from, to) -> g.drawLine(layout.X(i), layout.Y(from), layout.X(i), layout.Y(to)));
+        g.setStroke(oldStroke);
+    }
+
+    // Get the wall runs covering columns x1 to x2 and rows y1 to y2, those
+    //  of the whole maze if it is small enough to keep them
+    private WallRuns GetWallRuns(int x1, int y1, int x2, int y2) {
+        if ((long) maze.getWidth() * maze.getHeight() > RUN_SQUARES) {
+            return new WallRuns(maze, x1, y1, x2, y2);
+        }
+        if (runs == null || !runs.IsFor(maze)) {
+            runs = new WallRuns(maze);
+        }
+        return runs;
+    }
+
+    // Draw the walls of small squares in an area a pixel wide, written
+    //  straight into an image which is then copied to the area
+    private void DrawWallPixels(Graphics2D g, RectLayout layout, Rectangle area) {
+        int w = area.width;
+        int h = area.height;
+        int data[] = GetPixels(w, h);
+        int stride = pixels.getWidth();
+        int paper = background.getRGB();
+        int ink = Color.BLACK.getRGB();
+        for (int y = 0; y < h; y++) {
+            Arrays.fill(data, y * stride, y * stride + w, paper);
+        }
+
+        int width = maze.getWidth();
+        int height = maze.getHeight();
+        int north = Walls.North.Bit();
+        int east = Walls.East.Bit();
+        int south = Walls.South.Bit();
+        int west = Walls.West.Bit();
+        int lastRow = layout.LastRow(area);
+        int lastColumn = layout.LastColumn(area);
+        for (int j = layout.FirstRow(area); j <= lastRow; j++) {
+            int y1 = layout.Y(j) - area.y;
+            int y2 = layout.Y(j + 1) - area.y;
+            for (int i = layout.FirstColumn(area); i <= lastColumn; i++) {
+                int x1 = layout.X(i) - area.x;
+                int x2 = layout.X(i + 1) - area.x;
+                int bits = maze.GetCell(maze.CellIndex(i, j));
+                if ((bits & north) != 0) {
+                    HorizontalPixels(data, stride, w, h, x1, x2, y1, ink);
+                }
+                if ((bits & west) != 0) {
+                    VerticalPixels(data, stride, w, h, x1, y1, y2, ink);
+                }
+                if (j == height - 1 && (bits & south) != 0) {
+                    HorizontalPixels(data, stride, w, h, x1, x2, y2, ink);
+                }
+                if (i == width - 1 && (bits & east) != 0) {
+                    VerticalPixels(data, stride, w, h, x2, y1, y2, ink);
+                }
+            }
+        }
+        g.drawImage(pixels, area.x, area.y, area.x + w, area.y + h, 0, 0, w, h, null);
+    }
+
+    // Set a row of pixels, x1 to x2 inclusive, clipped to w by h
+    private static void HorizontalPixels(int data[], int stride, int w, int h, int x1, int x2, int y, int ink) {
+        if (y >= 0 && y < h) {
+            int from = Math.max(x1, 0);
+            int to = Math.min(x2, w - 1);
+            if (from <= to) {
+                Arrays.fill(data, y * stride + from, y * stride + to + 1, ink);
+            }
+        }
+    }
+
+    // Set a column of pixels, y1 to y2 inclusive, clipped to w by h
+    private static void VerticalPixels(int data[], int stride, int w, int h, int x, int y1, int y2, int ink) {
+        if (x >= 0 && x < w) {
+            for (int y = Math.max(y1, 0), to = Math.min(y2, h - 1); y <= to; y++) {
+                data[y * stride + x] = ink;
+            }
+        }
+    }
+
+    // Draw squares smaller than a couple of pixels as the density of
+    //  walls.  Each pixel is shaded for the block of squares it falls
+    //  in, from the level of the density whose blocks are at least a
+    //  pixel across
+    private void DrawWallDensity(Graphics2D g, RectLayout layout, Rectangle area) {
+        if (density == null || !density.IsFor(maze)) {
+            density = new WallDensity(maze);
+        }
+        double perPixel = 1.0 / layout.SquarePixels();
+        int level = (int) Math.ceil(Math.log(perPixel) / Math.log(2));
+        level = Math.max(1, Math.min(level, density.getLevels()));
+        byte shades[] = density.Level(level);
+        int levelWidth = density.Width(level);
+
+        int w = area.width;
+        int h = area.height;
+        int data[] = GetPixels(w, h);
+        int stride = pixels.getWidth();
+        int paper = background.getRGB();
+
+        // Shade for each density, from the background to black
+        int palette[] = new int[256];
+        for (int d = 0; d < 256; d++) {
+            int red = ((paper >> 16) & 0xFF) * (255 - d) / 255;
+            int green = ((paper >> 8) & 0xFF) * (255 - d) / 255;
+            int blue = (paper & 0xFF) * (255 - d) / 255;
+            palette[d] = 0xFF000000 | (red << 16) | (green << 8) | blue;
+        }
+
+        // Block of each column of pixels, -1 outside the maze
+        int columns[] = new int[w];
+        for (int x = 0; x < w; x++) {
+            double i = (area.x + x + 0.5 - layout.left) / layout.cellwidth;
+            columns[x] = (i < 0 || i >= layout.width) ? -1 : (int) i >> level;
+        }
+        for (int y = 0; y < h; y++) {
+            double j = (area.y + y + 0.5 - layout.top) / layout.cellheight;
+            int at = y * stride;
+            if (j < 0 || j >= layout.height) {
+                Arrays.fill(data, at, at + w, paper);
+                continue;
+            }
+            int row = ((int) j >> level) * levelWidth;
+            for (int x = 0; x < w; x++) {
+                int block = columns[x];
+                data[at + x] = (block < 0) ? paper : palette[shades[row + block] & 0xFF];
+            }
+        }
+        g.drawImage(pixels, area.x, area.y, area.x + w, area.y + h, 0, 0, w, h, null);
+    }
+
+    // Draw the solution of a rectangular maze in an area.  Only the
+    //  steps which can reach into the area are visited, from the
+    //  solution index, and steps which do not leave the pixel the line
+    //  has reached are skipped, so a long solution drawn small draws no
+    //  more lines than there are pixels.  Steps going straight on across
+    //  or down are merged into one line, filled as the rectangle of
+    //  pixels it covers.  A rectangle is filled the same however it is
+    //  clipped, where a stroked path can gain or lose a pixel at the edge
+    //  of the clip, and costs less than filling the lines as one path
+    void DrawRectangularSolution(Graphics2D g, RectLayout layout, Rectangle area) {
+        // start of the line being merged, where it has reached, and its
+        //  direction
+        int pen[] = {Integer.MIN_VALUE, 0, Integer.MIN_VALUE, 0, 0, 0};
+
+        // Draw solution in red
+        g.setColor(Color.RED);
+
+        // The solution is visited from exit to entrance, adding the line
+        //  for each pair of points
+        GetSolutionIndex().VisitSteps(layout.FirstColumn(area), layout.FirstRow(area),
+                layout.LastColumn(area), layout.LastRow(area), (x1, y1, x2, y2) -> {
+            int px1 = layout.CentreX(x1);
+            int py1 = layout.CentreY(y1);
+            int px2 = layout.CentreX(x2);
+            int py2 = layout.CentreY(y2);
+            if (px1 != pen[2] || py1 != pen[3]) {
+                // not joined to the last line, start again here
+                FinishLine(g, pen);
+                pen[0] = pen[2] = px1;
+                pen[1] = pen[3] = py1;
+                pen[4] = pen[5] = 0;
+            }
+            if (px2 != pen[2] || py2 != pen[3]) {
+                int dx = Integer.signum(px2 - pen[2]);
+                int dy = Integer.signum(py2 - pen[3]);
+                if (dx != 0 && dy != 0) {
+                    // a slanting line, only where skipped steps are
+                    //  smaller than a pixel, drawn on its own
+                    FinishLine(g, pen);
+                    g.drawLine(pen[2], pen[3], px2, py2);
+                    pen[0] = px2;
+                    pen[1] = py2;
+                    pen[4] = pen[5] = 0;
+                } else if (dx != pen[4] || dy != pen[5]) {
+                    FinishLine(g, pen);
+                    pen[4] = dx;
+                    pen[5] = dy;
+                }
+                pen[2] = px2;
+                pen[3] = py2;
+            }
+        });
+        FinishLine(g, pen);
+    }
+
+    // Fill the line being merged, and start the next line where it ends
+    private static void FinishLine(Graphics2D g, int pen[]) {
+        if (pen[2] != pen[0] || pen[3] != pen[1]) {
+            int x = Math.min(pen[0], pen[2]);
+            int y = Math.min(pen[1], pen[3]);
+            g.fillRect(x, y, Math.abs(pen[2] - pen[0]) + 1, Math.abs(pen[3] - pen[1]) + 1);
+            pen[0] = pen[2];
+            pen[1] = pen[3];
+        }
+    }
+
+    // Get the solution index of the maze, building it if the maze has changed
+    private SolutionIndex GetSolutionIndex() {
+        if (solutionIndex == null || !solutionIndex.IsFor(maze)) {
+            solutionIndex = new SolutionIndex(maze);
+        }
+        return solutionIndex;
+    }
+
+    // Area covered by the solution of a rectangular maze, a pixel wider
+    //  than the line each side
+    private Rectangle RectangularSolutionBounds(RectLayout layout) {
+        Rectangle squares = GetSolutionIndex().getBounds();
+        if (squares.isEmpty()) {
+            return new Rectangle();
+        }
+        int x = layout.CentreX(squares.x) - 2;
+        int y = layout.CentreY(squares.y) - 2;
+        return new Rectangle(x, y, layout.CentreX(squares.x + squares.width - 1) - x + 3,
+                layout.CentreY(squares.y + squares.height - 1) - y + 3);
+    }
+
+    // Area covered by the solution of a circular maze, the box of the
+    //  outermost ring it reaches, a pixel wider than the line each side
+    private Rectangle CircularSolutionBounds(CircularLayout c) {
+        Rectangle squares = GetSolutionIndex().getBounds();
+        if (squares.isEmpty()) {
+            return new Rectangle();
+        }
+        int j = squares.y;
+        int x = c.left + j * c.x_sect + c.x_sect / 2 - 2;
+        int y = c.top + j * c.y_sect + c.y_sect / 2 - 2;
+        return new Rectangle(x, y, c.r.width - 2 * j * c.x_sect - c.x_sect + 5,
+                c.r.height - 2 * j * c.y_sect - c.y_sect + 5);
+    }
+}
@@ -0,0 +1,271 @@
+//
+// MazeSolver.java
+// Finds the path between two squares of a maze.
+//
+//  The search is iterative (breadth first, or A* using the distance between
+//    squares as the estimate) and keeps all of its working state in its own
+//    primitive arrays, so the maze map is never changed and the same maze can
+//    be solved any number of times, between any two squares.  When the maze
+//    map is held off the heap, so are the direction taken to each square,
+//    the squares reached and the A* costs, up to 9 bytes a square; only the
+//    A* open list, which grows with the edge of the search, is on the heap.
+//
+//  The Junction method searches the maze's JunctionGraph instead, taking one
+//    step per junction rather than per square, which is much faster on mazes
+//    with long corridors once the graph has been built.  The Bidirectional
+//    method uses a BidirectionalSolver, searching from both ends at once on
+//    two threads.
+//
+package maze;
+
+import java.util.Arrays;
+import maze.Maze.Walls;
+
+//
+// Maze solver
+public class MazeSolver {
+
+    // The search methods available
+    public enum Method {
+        BFS,
+        AStar,
+        Junction,
+        Bidirectional
+    };
+
+    private static final Walls DIRS[] = {Walls.North, Walls.South, Walls.East, Walls.West};
+
+    private final Maze maze;
+    private Method method = Method.BFS;
+    private BidirectionalSolver bidirectional = null;
+
+    // Direction (ordinal + 1) taken to reach each square, 0 if not yet reached
+    private CellStore parent = new HeapCellStore(0);
+    // Cost from the start to each square (A* only)
+    private IntStore cost = null;
+
+    // Squares reached in the current search, also used as the BFS queue.
+    //  On the heap it grows as needed, off it it has room for every square
+    private IntStore reached = new HeapIntStore(16);
+    private int reachedCount = 0;
+
+    // A* open list, a binary heap of (estimate << 32 | square)
+    private long heap[] = new long[16];
+    private int heapSize = 0;
+
+    // Constructor - solve the given maze
+    public MazeSolver(Maze maze) {
+        this.maze = maze;
+    }
+
+    // Constructor - solve the given maze using a particular method
+    public MazeSolver(Maze maze, Method method) {
+        this.maze = maze;
+        this.method = method;
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+
+    public void setMethod(Method method) {
+        this.method = method;
+    }
+
+    // Number of squares the last search reached (junctions for the Junction method)
+    public int getVisited() {
+        return reachedCount;
+    }
+
+    // Free the working storage now, rather than when the solver is collected
+    public void Release() {
+        parent.close();
+        parent = new HeapCellStore(0);
+        if (cost != null) {
+            cost.close();
+            cost = null;
+        }
+        reached.close();
+        reached = new HeapIntStore(16);
+        heap = new long[16];
+    }
+
+    // Find the path between two squares.  Returns the square indexes
+    //  (y * width + x) from the start to the target inclusive, or null if
+    //  there is no path.
+    public int[] Solve(int fromx, int fromy, int tox, int toy) {
+        return Solve(maze.CellIndex(fromx, fromy), maze.CellIndex(tox, toy));
+    }
+
+    // Find the path between two squares given as indexes
+    public int[] Solve(int from, int to) {
+        if (method == Method.Junction) {
+            JunctionGraph graph = maze.getJunctionGraph();
+            int path[] = graph.Solve(from, to);
+            reachedCount = graph.getSettled();
+            return path;
+        } else if (method == Method.Bidirectional) {
+            if (bidirectional == null) {
+                bidirectional = new BidirectionalSolver(maze);
+            }
+            int path[] = bidirectional.Solve(from, to);
+            reachedCount = bidirectional.getVisited();
+            return path;
+        }
+        Prepare();
+
+        boolean found = (method == Method.AStar) ? SearchAStar(from, to) : SearchBFS(from, to);
+        int path[] = found ? BuildPath(from, to) : null;
+
+        // clear the squares we have used ready for the next search
+        for (int i = 0; i < reachedCount; i++) {
+            parent.Set(reached.Get(i), 0);
+        }
+        return path;
+    }
+
+    // Make sure the working arrays match the size of the maze
+    private void Prepare() {
+        int cells = maze.getWidth() * maze.getHeight();
+        boolean offHeap = (maze.getStore() instanceof DirectCellStore);
+        if (parent.size() != cells || offHeap != (parent instanceof DirectCellStore)) {
+            parent.close();
+            parent = offHeap ? new DirectCellStore(cells) : new HeapCellStore(cells);
+            if (cost != null) {
+                cost.close();
+                cost = null;
+            }
+            reached.close();
+            reached = offHeap ? new DirectIntStore(cells) : new HeapIntStore(16);
+        }
+        if (method == Method.AStar && cost == null) {
+            cost = offHeap ? new DirectIntStore(cells) : new HeapIntStore(cells);
+        }
+        reachedCount = 0;
+        heapSize = 0;
+    }
+
+    // Breadth first search, the reached list is the queue
+    private boolean SearchBFS(int from, int to) {
+        Reach(from, Walls.Available);
+        int head = 0;
+
+        while (head < reachedCount) {
+            int cell = reached.Get(head++);
+            if (cell == to) {
+                return true;
+            }
+            for (Walls dir : DIRS) {
+                int next = maze.Step(cell, dir);
+                if (next >= 0 && parent.Get(next) == 0) {
+                    Reach(next, dir);
+                }
+            }
+        }
+        return false;
+    }
+
+    // A* search, using the distance to the target as the estimate
+    private boolean SearchAStar(int from, int to) {
+        Reach(from, Walls.Available);
+        cost.Set(from, 0);
+        HeapPush(Estimate(from, to), from);
+
+        while (heapSize > 0) {
+            int cell = HeapPop();
+            if (cell == to) {
+                return true;
+            }
+            int g = cost.Get(cell) + 1;
+            for (Walls dir : DIRS) {
+                int next = maze.Step(cell, dir);
+                if (next < 0) {
+                    continue;
+                }
+                if (parent.Get(next) == 0) {
+                    Reach(next, dir);
+                } else if (cost.Get(next) <= g) {
+                    continue;
+                } else {
+                    parent.Set(next, dir.ordinal() + 1);
+                }
+                cost.Set(next, g);
+                HeapPush(g + Estimate(next, to), next);
+            }
+        }
+        return false;
+    }
+
+    // Record a square as reached, and the direction used to get there
+    private void Reach(int cell, Walls dir) {
+        if (reachedCount == reached.size()) {
+            reached = new HeapIntStore((HeapIntStore) reached, reached.size() * 2);
+        }
+        reached.Set(reachedCount++, cell);
+        parent.Set(cell, dir.ordinal() + 1);
+    }
+
+    // Minimum number of moves between two squares, allowing for wrap around
+    private int Estimate(int from, int to) {
+        return maze.getTopology().MinMoves(from, to, maze.getWidth(), maze.getHeight());
+    }
+
+    // Follow the directions back from the target to build the path
+    private int[] BuildPath(int from, int to) {
+        int length = 1;
+        for (int cell = to; cell != from; length++) {
+            cell = maze.Neighbour(cell, Walls.values()[parent.Get(cell) - 1].Opposite());
+        }
+
+        int path[] = new int[length];
+        int cell = to;
+        for (int i = length - 1; i >= 0; i--) {
+            path[i] = cell;
+            if (i > 0) {
+                cell = maze.Neighbour(cell, Walls.values()[parent.Get(cell) - 1].Opposite());
+            }
+        }
+        return path;
+    }
+
+    // Add a square to the open list
+    private void HeapPush(int estimate, int cell) {
+        if (heapSize == heap.length) {
+            heap = Arrays.copyOf(heap, heap.length * 2);
+        }
+        long item = ((long) estimate << 32) | (cell & 0xFFFFFFFFL);
+        int i = heapSize++;
+        while (i > 0) {
+            int up = (i - 1) >> 1;
+            if (heap[up] <= item) {
+                break;
+            }
+            heap[i] = heap[up];
+            i = up;
+        }
+        heap[i] = item;
+    }
+
+    // Remove the square with the lowest estimate from the open list
+    private int HeapPop() {
+        long top = heap[0];
+        long item = heap[--heapSize];
+        int i = 0;
+        int half = heapSize >> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < heapSize && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (item <= heap[child]) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        if (heapSize > 0) {
+            heap[i] = item;
+        }
+        return (int) top;
+    }
+}
@@ -0,0 +1,309 @@
+//
+// MazeStats.java
+// Counts and latency histograms of maze generations, solves and moves, 
+//  published as a JMX MBean.
+//
+//  Recording is off unless the program is started with -Dmaze.stats=true,
+//    or it is turned on with setEnabled; while it is off each record call
+//    is a check of one flag and the clock is not read.  The MBean is
+//    registered with the platform MBean server as "maze:type=MazeStats",
+//    to be watched from JConsole or VisualVM, when recording is first
+//    turned on, or earlier by Register() so recording can be turned on
+//    there with the Enabled attribute.  Until then JMX is not started.
+//
+//  Each histogram is a fixed array of counters, four to each power of two
+//    nanoseconds, updated without locks, so a latency is found to within
+//    25% at any scale with no allocation when recording.
+//
+package maze;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+//
+// Maze statistics
+public class MazeStats implements MazeStatsMBean {
+
+    public static final String OBJECT_NAME = "maze:type=MazeStats";
+
+    private static volatile boolean enabled = Boolean.getBoolean("maze.stats");
+    private static final MazeStats INSTANCE = new MazeStats();
+    private static boolean registered = false;
+
+    static {
+        if (enabled) {
+            Register();
+        }
+    }
+
+    // Register the MBean with the platform MBean server, if it is not
+    //  already, starting JMX
+    public static synchronized void Register() {
+        if (registered) {
+            return;
+        }
+        registered = true;
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            server.registerMBean(INSTANCE, new ObjectName(OBJECT_NAME));
+        } catch (JMException | SecurityException e) {
+            // statistics are still kept and can be read through getInstance()
+        }
+    }
+
+    //
+    // Latency histogram
+    static class Histogram {
+
+        private static final int BUCKETS = 4 * 62;
+
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+        private final LongAdder total = new LongAdder();
+        private final AtomicLong max = new AtomicLong();
+
+        // Bucket a latency is counted in.  Below 4ns a bucket each, then
+        //  four to each power of two, split by the two bits below the top one
+        static int Bucket(long nanos) {
+            if (nanos < 4) {
+                return (int) Math.max(nanos, 0);
+            }
+            int top = 63 - Long.numberOfLeadingZeros(nanos);
+            return 4 * (top - 1) + (int) ((nanos >>> (top - 2)) & 3);
+        }
+
+        // Upper bound (exclusive) in nanoseconds of a bucket
+        static long BucketLimit(int bucket) {
+            if (bucket < 4) {
+                return bucket + 1;
+            }
+            int top = bucket / 4 + 1;
+            return (5L + (bucket & 3)) << (top - 2);
+        }
+
+        void Record(long nanos) {
+            counts.incrementAndGet(Bucket(nanos));
+            total.add(nanos);
+            long m = max.get();
+            while (nanos > m && !max.compareAndSet(m, nanos)) {
+                m = max.get();
+            }
+        }
+
+        void Reset() {
+            for (int i = 0; i < BUCKETS; i++) {
+                counts.set(i, 0);
+            }
+            total.reset();
+            max.set(0);
+        }
+
+        long[] Counts() {
+            long c[] = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) {
+                c[i] = counts.get(i);
+            }
+            return c;
+        }
+
+        long Count() {
+            long n = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                n += counts.get(i);
+            }
+            return n;
+        }
+
+        double MeanMicros() {
+            long n = Count();
+            return (n == 0) ? 0.0 : total.sum() / 1000.0 / n;
+        }
+
+        double MaxMicros() {
+            return max.get() / 1000.0;
+        }
+
+        // Latency below which a fraction of the records fall, as the upper
+        //  bound of its bucket, but never more than the largest seen
+        double PercentileMicros(double fraction) {
+            long c[] = Counts();
+            long n = 0;
+            for (long v : c) {
+                n += v;
+            }
+            if (n == 0) {
+                return 0.0;
+            }
+            long rank = (long) Math.ceil(fraction * n);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += c[i];
+                if (seen >= rank) {
+                    return Math.min(BucketLimit(i), max.get()) / 1000.0;
+                }
+            }
+            return MaxMicros();
+        }
+    }
+
+    private final Histogram generations = new Histogram();
+    private final Histogram solves = new Histogram();
+    private final Histogram moves = new Histogram();
+
+    private MazeStats() {
+    }
+
+    // Get the statistics kept for the program
+    public static MazeStats getInstance() {
+        return INSTANCE;
+    }
+
+    // Is recording on.  Cheap enough to test before reading the clock
+    static boolean isRecording() {
+        return enabled;
+    }
+
+    // Record a maze generation
+    static void RecordGeneration(long nanos) {
+        if (enabled) {
+            INSTANCE.generations.Record(nanos);
+        }
+    }
+
+    // Record a solve
+    static void RecordSolve(long nanos) {
+        if (enabled) {
+            INSTANCE.solves.Record(nanos);
+        }
+    }
+
+    // Record a navigation move
+    static void RecordMove(long nanos) {
+        if (enabled) {
+            INSTANCE.moves.Record(nanos);
+        }
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean on) {
+        if (on) {
+            Register();
+        }
+        enabled = on;
+    }
+
+    @Override
+    public void Reset() {
+        generations.Reset();
+        solves.Reset();
+        moves.Reset();
+    }
+
+    @Override
+    public long getGenerationCount() {
+        return generations.Count();
+    }
+
+    @Override
+    public double getGenerationMeanMicros() {
+        return generations.MeanMicros();
+    }
+
+    @Override
+    public double getGenerationP50Micros() {
+        return generations.PercentileMicros(0.50);
+    }
+
+    @Override
+    public double getGenerationP99Micros() {
+        return generations.PercentileMicros(0.99);
+    }
+
+    @Override
+    public double getGenerationMaxMicros() {
+        return generations.MaxMicros();
+    }
+
+    @Override
+    public long[] getGenerationHistogram() {
+        return generations.Counts();
+    }
+
+    @Override
+    public long getSolveCount() {
+        return solves.Count();
+    }
+
+    @Override
+    public double getSolveMeanMicros() {
+        return solves.MeanMicros();
+    }
+
+    @Override
+    public double getSolveP50Micros() {
+        return solves.PercentileMicros(0.50);
+    }
+
+    @Override
+    public double getSolveP99Micros() {
+        return solves.PercentileMicros(0.99);
+    }
+
+    @Override
+    public double getSolveMaxMicros() {
+        return solves.MaxMicros();
+    }
+
+    @Override
+    public long[] getSolveHistogram() {
+        return solves.Counts();
+    }
+
+    @Override
+    public long getMoveCount() {
+        return moves.Count();
+    }
+
+    @Override
+    public double getMoveMeanMicros() {
+        return moves.MeanMicros();
+    }
+
+    @Override
+    public double getMoveP50Micros() {
+        return moves.PercentileMicros(0.50);
+    }
+
+    @Override
+    public double getMoveP99Micros() {
+        return moves.PercentileMicros(0.99);
+    }
+
+    @Override
+    public double getMoveMaxMicros() {
+        return moves.MaxMicros();
+    }
+
+    @Override
+    public long[] getMoveHistogram() {
+        return moves.Counts();
+    }
+
+    @Override
+    public long[] getHistogramBucketLimits() {
+        long limits[] = new long[Histogram.BUCKETS];
+        for (int i = 0; i < limits.length; i++) {
+            limits[i] = Histogram.BucketLimit(i);
+        }
+        return limits;
+    }
+}
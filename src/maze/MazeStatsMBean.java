@@ -0,0 +1,61 @@
+//
+// MazeStatsMBean.java
+// Management interface of MazeStats, as seen in JConsole or any JMX client.
+//
+//  Latencies are in microseconds.  The percentiles are the upper bound of the
+//    histogram bucket they fall in, within 25% of the true value.
+//
+package maze;
+
+//
+// Maze statistics MBean
+public interface MazeStatsMBean {
+
+    // Is recording on
+    boolean isEnabled();
+
+    // Turn recording on or off
+    void setEnabled(boolean enabled);
+
+    // Clear all the counters and histograms
+    void Reset();
+
+    long getGenerationCount();
+
+    double getGenerationMeanMicros();
+
+    double getGenerationP50Micros();
+
+    double getGenerationP99Micros();
+
+    double getGenerationMaxMicros();
+
+    long[] getGenerationHistogram();
+
+    long getSolveCount();
+
+    double getSolveMeanMicros();
+
+    double getSolveP50Micros();
+
+    double getSolveP99Micros();
+
+    double getSolveMaxMicros();
+
+    long[] getSolveHistogram();
+
+    long getMoveCount();
+
+    double getMoveMeanMicros();
+
+    double getMoveP50Micros();
+
+    double getMoveP99Micros();
+
+    double getMoveMaxMicros();
+
+    long[] getMoveHistogram();
+
+    // Upper bound in nanoseconds of each histogram bucket
+    long[] getHistogramBucketLimits();
+}
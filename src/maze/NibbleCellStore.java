@@ -0,0 +1,84 @@
+//
+// NibbleCellStore.java
+// Cell storage in a ByteBuffer holding only the four walls of each cell,
+//  two cells per byte (the even cell in the low half).
+//
+//  This is the layout of the cells in a maze file, so the store can sit
+//    directly on a memory mapped file (see MazeFile).  Only the wall bits
+//    are kept; the other bits are dropped on Set, so a maze can not be 
+//    generated directly into this store.
+//
+package maze;
+
+import java.nio.ByteBuffer;
+import maze.Maze.Walls;
+
+//
+// Four bit per cell buffer store
+public class NibbleCellStore implements CellStore {
+
+    static final int WALL_BITS = Walls.North.Bit() | Walls.East.Bit() | Walls.South.Bit() | Walls.West.Bit();
+
+    private final ByteBuffer buffer;
+    private final int offset;  // position of the first cell in the buffer
+    private final int size;
+
+    // Constructor - cells start at offset in the buffer
+    public NibbleCellStore(ByteBuffer buffer, int offset, int size) {
+        this.buffer = buffer;
+        this.offset = offset;
+        this.size = size;
+    }
+
+    // Number of bytes needed to hold a number of cells
+    public static long BytesFor(long cells) {
+        return (cells + 1) / 2;
+    }
+
+    @Override
+    public int Get(int cell) {
+        int b = buffer.get(offset + (cell >>> 1));
+        return ((cell & 1) == 0) ? (b & 0x0F) : ((b >> 4) & 0x0F);
+    }
+
+    @Override
+    public void Set(int cell, int bits) {
+        int index = offset + (cell >>> 1);
+        int b = buffer.get(index);
+        if ((cell & 1) == 0) {
+            b = (b & 0xF0) | (bits & WALL_BITS);
+        } else {
+            b = (b & 0x0F) | ((bits & WALL_BITS) << 4);
+        }
+        buffer.put(index, (byte) b);
+    }
+
+    @Override
+    public void Fill(int bits) {
+        byte b = (byte) ((bits & WALL_BITS) | ((bits & WALL_BITS) << 4));
+        long bytes = BytesFor(size);
+        for (int i = 0; i < bytes; i++) {
+            buffer.put(offset + i, b);
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public long BytesUsed() {
+        return BytesFor(size);
+    }
+
+    // The buffer holding the cells
+    ByteBuffer getBuffer() {
+        return buffer;
+    }
+
+    // Position of the first cell in the buffer
+    int getOffset() {
+        return offset;
+    }
+}
@@ -0,0 +1,351 @@
+//
+// PathIndex.java
+// Answers path queries between any two squares of a perfect maze.
+//
+//  A perfect maze is a tree, so the path between two squares goes up from
+//    each to their lowest common ancestor.  The index roots the tree (at the
+//    exit square by default) and holds, for every square, the direction to
+//    its parent, its depth, and one jump pointer to an ancestor further up.
+//    The jump pointers follow a skew-binary pattern, so any ancestor is
+//    found in O(log n) steps with one pointer a square.
+//
+//  The common ancestor is found in constant time from an Euler tour of the
+//    tree (the squares in the order a depth first walk passes them, with
+//    their depths), as the shallowest square of the tour between the two
+//    squares.  The tour is split into blocks of 32, with a sparse table of
+//    the minimum of each run of 2^k blocks, so a query is two short scans
+//    and two table lookups.  About 37 bytes a square in all.
+//
+//  Distance queries never build the path.  A Route gives the squares of a
+//    path one at a time, each found when it is asked for.  If the maze is
+//    not perfect the paths follow the breadth first tree from the root, and
+//    squares which can not be reached from each other have no path.
+//
+package maze;
+
+import java.util.Arrays;
+import maze.Maze.Walls;
+
+//
+// Tree path query index
+public class PathIndex {
+
+    private static final Walls DIRS[] = {Walls.North, Walls.East, Walls.South, Walls.West};
+    private static final Walls BY_ORDINAL[] = Walls.values();
+
+    private final Maze maze;
+    private final int root;
+    private final byte parentDir[];  // direction (ordinal + 1) to the parent, 0 for a root
+    private final int depth[];  // moves to the root
+    private final int jump[];  // an ancestor, the square itself for a root
+
+    // Euler tour, each entry is (depth << 32 | square)
+    private static final int BLOCK_SHIFT = 5;
+    private final long tour[];
+    private final int first[];  // position of each square's first visit in the tour
+    private int treeStart[] = new int[1];  // position in the tour where each tree starts
+    private int treeCount = 0;
+    private long sparse[][];  // sparse[k][b] is the minimum of blocks b to b + 2^k - 1
+
+    //
+    // The squares of the path between two squares, found as they are needed
+    public class Route {
+
+        private final int from;
+        private final int to;
+        private final int top;  // the common ancestor
+        private final int length;  // number of moves
+
+        private Route(int from, int to, int top) {
+            this.from = from;
+            this.to = to;
+            this.top = top;
+            this.length = depth[from] + depth[to] - 2 * depth[top];
+        }
+
+        // Number of moves along the route
+        public int getLength() {
+            return length;
+        }
+
+        // Number of squares on the route, including both ends
+        public int size() {
+            return length + 1;
+        }
+
+        // Get a square of the route, 0 is the start
+        public int Get(int i) {
+            int up = depth[from] - depth[top];
+            if (i <= up) {
+                return Ancestor(from, depth[from] - i);
+            }
+            return Ancestor(to, depth[top] + (i - up));
+        }
+
+        // Call the visitor for each step along the route, from the start
+        public void ForEachStep(SolutionPath.StepVisitor visitor) {
+            int width = maze.getWidth();
+            int prev = from;
+            // up to the common ancestor, one parent at a time
+            while (prev != top) {
+                int next = Parent(prev);
+                visitor.Step(prev % width, prev / width, next % width, next / width);
+                prev = next;
+            }
+            // then down to the target
+            int up = depth[from] - depth[top];
+            for (int i = up + 1; i <= length; i++) {
+                int next = Get(i);
+                visitor.Step(prev % width, prev / width, next % width, next / width);
+                prev = next;
+            }
+        }
+
+        // Copy the squares of the route into a new array
+        public int[] ToArray() {
+            int path[] = new int[length + 1];
+            int up = depth[from] - depth[top];
+            int cell = from;
+            for (int i = 0; i <= up; i++) {
+                path[i] = cell;
+                cell = Parent(cell);
+            }
+            cell = to;
+            for (int i = length; i > up; i--) {
+                path[i] = cell;
+                cell = Parent(cell);
+            }
+            return path;
+        }
+    }
+
+    // Constructor - index the maze rooted at its exit square
+    public PathIndex(Maze maze) {
+        this(maze, maze.CellIndex(maze.getExitPos(), 0));
+    }
+
+    // Constructor - index the maze rooted at a given square
+    public PathIndex(Maze maze, int root) {
+        this.maze = maze;
+        this.root = root;
+
+        int cells = maze.getWidth() * maze.getHeight();
+        parentDir = new byte[cells];
+        depth = new int[cells];
+        jump = new int[cells];
+
+        // Breadth first from the root, so a square's parent (and all the
+        //  parent's ancestors) are done before it.  Squares not reached
+        //  from the root start trees of their own.
+        boolean done[] = new boolean[cells];
+        int queue[] = new int[cells];
+        int tail = 0;
+        int head = 0;
+        int scan = 0;
+        for (int start = root; start >= 0; ) {
+            done[start] = true;
+            jump[start] = start;
+            queue[tail++] = start;
+
+            while (head < tail) {
+                int cell = queue[head++];
+                for (Walls dir : DIRS) {
+                    int child = maze.Step(cell, dir);
+                    if (child < 0 || done[child]) {
+                        continue;
+                    }
+                    done[child] = true;
+                    parentDir[child] = (byte) (dir.Opposite().ordinal() + 1);
+                    depth[child] = depth[cell] + 1;
+                    jump[child] = JumpFor(cell);
+                    queue[tail++] = child;
+                }
+            }
+
+            while (scan < cells && done[scan]) {
+                scan++;
+            }
+            start = (scan < cells) ? scan : -1;
+        }
+
+        // queue[] holds every tree in turn, each starting at its root
+        tour = new long[2 * cells];
+        first = new int[cells];
+        byte tried[] = new byte[cells];
+        IntStack stack = new IntStack(256);
+        int length = 0;
+        for (int i = 0; i < cells; i++) {
+            if (parentDir[queue[i]] == 0) {
+                if (treeCount == treeStart.length) {
+                    treeStart = Arrays.copyOf(treeStart, treeCount * 2);
+                }
+                treeStart[treeCount++] = length;
+                length = Tour(queue[i], length, stack, tried);
+            }
+        }
+        BuildSparse(length);
+    }
+
+    // Add a tree to the Euler tour, walking it depth first without recursion.
+    //  tried[] counts the directions tried from each square on the way down.
+    //  Returns the new length of the tour.
+    private int Tour(int top, int length, IntStack stack, byte tried[]) {
+        stack.Push(top);
+        first[top] = length;
+        tour[length++] = TourEntry(top);
+
+        while (!stack.isEmpty()) {
+            int cell = stack.Peek();
+            if (tried[cell] == DIRS.length) {
+                // back up to the parent
+                stack.Pop();
+                if (!stack.isEmpty()) {
+                    tour[length++] = TourEntry(stack.Peek());
+                }
+                continue;
+            }
+            int child = maze.Step(cell, DIRS[tried[cell]++]);
+            if (child >= 0 && parentDir[child] != 0 && Parent(child) == cell) {
+                stack.Push(child);
+                first[child] = length;
+                tour[length++] = TourEntry(child);
+            }
+        }
+        return length;
+    }
+
+    // Tour entry for a square, ordered by depth
+    private long TourEntry(int cell) {
+        return ((long) depth[cell] << 32) | cell;
+    }
+
+    // Build the sparse table of block minimums over the tour
+    private void BuildSparse(int length) {
+        int blocks = ((length - 1) >> BLOCK_SHIFT) + 1;
+        int levels = 32 - Integer.numberOfLeadingZeros(blocks);
+        sparse = new long[levels][];
+
+        sparse[0] = new long[blocks];
+        Arrays.fill(sparse[0], Long.MAX_VALUE);
+        for (int i = 0; i < length; i++) {
+            int b = i >> BLOCK_SHIFT;
+            sparse[0][b] = Math.min(sparse[0][b], tour[i]);
+        }
+        for (int k = 1; k < levels; k++) {
+            int span = 1 << (k - 1);
+            sparse[k] = new long[blocks - (1 << k) + 1];
+            for (int b = 0; b < sparse[k].length; b++) {
+                sparse[k][b] = Math.min(sparse[k - 1][b], sparse[k - 1][b + span]);
+            }
+        }
+    }
+
+    // Minimum tour entry between two positions, inclusive
+    private long TourMin(int from, int to) {
+        int fromBlock = from >> BLOCK_SHIFT;
+        int toBlock = to >> BLOCK_SHIFT;
+        long min = Long.MAX_VALUE;
+        if (fromBlock == toBlock) {
+            for (int i = from; i <= to; i++) {
+                min = Math.min(min, tour[i]);
+            }
+            return min;
+        }
+
+        // the ends of the two end blocks, then the whole blocks between
+        for (int i = from, end = (fromBlock + 1) << BLOCK_SHIFT; i < end; i++) {
+            min = Math.min(min, tour[i]);
+        }
+        for (int i = toBlock << BLOCK_SHIFT; i <= to; i++) {
+            min = Math.min(min, tour[i]);
+        }
+        if (fromBlock + 1 < toBlock) {
+            int lo = fromBlock + 1;
+            int k = 31 - Integer.numberOfLeadingZeros(toBlock - lo);
+            min = Math.min(min, Math.min(sparse[k][lo], sparse[k][toBlock - (1 << k)]));
+        }
+        return min;
+    }
+
+    // Index of the tree holding a tour position
+    private int TreeOf(int position) {
+        if (treeCount == 1) {
+            return 0;
+        }
+        int i = Arrays.binarySearch(treeStart, 0, treeCount, position);
+        return (i >= 0) ? i : -i - 2;
+    }
+
+    // Jump pointer for a child of a square.  If the square's jump and its
+    //  jump's jump cover the same number of moves, the child jumps twice as
+    //  far, otherwise it jumps just to its parent
+    private int JumpFor(int parent) {
+        int j = jump[parent];
+        if (depth[parent] - depth[j] == depth[j] - depth[jump[j]]) {
+            return jump[j];
+        }
+        return parent;
+    }
+
+    // Get the square the index is rooted at
+    public int getRoot() {
+        return root;
+    }
+
+    // Number of moves from a square to the root, along the tree
+    public int Depth(int cell) {
+        return depth[cell];
+    }
+
+    // Parent of a square, -1 for a root
+    public int Parent(int cell) {
+        int dir = parentDir[cell];
+        return (dir == 0) ? -1 : maze.Neighbour(cell, BY_ORDINAL[dir - 1]);
+    }
+
+    // Ancestor of a square at a given depth
+    public int Ancestor(int cell, int atDepth) {
+        while (depth[cell] > atDepth) {
+            cell = (depth[jump[cell]] >= atDepth) ? jump[cell] : Parent(cell);
+        }
+        return cell;
+    }
+
+    // Lowest common ancestor of two squares, -1 if they are not connected
+    public int CommonAncestor(int a, int b) {
+        int from = first[a];
+        int to = first[b];
+        if (from > to) {
+            int t = from;
+            from = to;
+            to = t;
+        }
+        if (TreeOf(from) != TreeOf(to)) {
+            return -1;
+        }
+        return (int) TourMin(from, to);
+    }
+
+    // Number of moves between two squares, -1 if they are not connected
+    public int Distance(int a, int b) {
+        int top = CommonAncestor(a, b);
+        return (top < 0) ? -1 : depth[a] + depth[b] - 2 * depth[top];
+    }
+
+    // Get the route between two squares, null if they are not connected.
+    //  Only the common ancestor is found, not the squares of the route.
+    public Route Path(int from, int to) {
+        int top = CommonAncestor(from, to);
+        return (top < 0) ? null : new Route(from, to, top);
+    }
+
+    // Number of bytes used by the index
+    public long BytesUsed() {
+        long bytes = (long) parentDir.length * (1 + 3 * Integer.BYTES) + (long) tour.length * Long.BYTES
+                + (long) treeStart.length * Integer.BYTES;
+        for (long level[] : sparse) {
+            bytes += (long) level.length * Long.BYTES;
+        }
+        return bytes;
+    }
+}
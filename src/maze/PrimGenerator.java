@@ -0,0 +1,86 @@
+//
+// PrimGenerator.java
+// Generates a maze using randomised Prim's algorithm.
+//
+//  The maze grows out from a random square.  The squares next to the maze
+//    form the frontier; a random frontier square is joined to a random
+//    neighbour already in the maze, and its own neighbours join the
+//    frontier.  This gives short passages with many branches.  The frontier
+//    is an int array with a bit per square marking membership.
+//
+package maze;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+import maze.Maze.Walls;
+
+//
+// Prim generator
+public class PrimGenerator implements MazeGenerator {
+
+    private static final Walls DIRS[] = {Walls.North, Walls.East, Walls.South, Walls.West};
+
+    private long workingBytes = 0;
+
+    @Override
+    public Algorithm getAlgorithm() {
+        return Algorithm.Prim;
+    }
+
+    @Override
+    public void Generate(Maze maze, Random rand) {
+        int cells = maze.getWidth() * maze.getHeight();
+        int frontier[] = new int[Math.max(16, maze.getWidth() + maze.getHeight())];
+        int size = 0;
+        BitSet inFrontier = new BitSet(cells);
+
+        // Start from a random square
+        int start = rand.nextInt(cells);
+        maze.MarkUsed(start);
+
+        int cell = start;
+        int joined[] = new int[4];
+        while (true) {
+            // Add the neighbours of the newest square to the frontier
+            for (Walls dir : DIRS) {
+                int next = maze.Neighbour(cell, dir);
+                if (next >= 0 && maze.IsAvailable(next) && !inFrontier.get(next)) {
+                    if (size == frontier.length) {
+                        frontier = Arrays.copyOf(frontier, size * 2);
+                    }
+                    frontier[size++] = next;
+                    inFrontier.set(next);
+                }
+            }
+
+            if (size == 0) {
+                break;
+            }
+
+            // Take a random square from the frontier
+            int item = rand.nextInt(size);
+            cell = frontier[item];
+            frontier[item] = frontier[--size];
+            inFrontier.clear(cell);
+
+            // Join it to a random neighbour already in the maze
+            int count = 0;
+            for (int d = 0; d < DIRS.length; d++) {
+                int next = maze.Neighbour(cell, DIRS[d]);
+                if (next >= 0 && !maze.IsAvailable(next)) {
+                    joined[count++] = d;
+                }
+            }
+            maze.Carve(cell, DIRS[joined[rand.nextInt(count)]]);
+            maze.MarkUsed(cell);
+        }
+
+        workingBytes = (long) frontier.length * Integer.BYTES + cells / 8;
+    }
+
+    @Override
+    public long getWorkingBytes() {
+        return workingBytes;
+    }
+}
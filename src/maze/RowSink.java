@@ -0,0 +1,28 @@
+//
+// RowSink.java
+// Receives a maze one finished row at a time, as produced by the streaming
+//  generator (EllerGenerator.Stream), so the whole maze need never be held
+//  in memory.
+//
+package maze;
+
+import java.io.IOException;
+
+//
+// Row by row maze consumer
+public interface RowSink {
+
+    // Called once before the first row, with the size of the maze and the
+    //  entrance (bottom row) and exit (top row) positions
+    default void Begin(int width, int height, boolean circular, int entrance, int exit) throws IOException {
+    }
+
+    // Called with each finished row, from the top (y = 0) down.  Each entry
+    //  holds the wall bits (Walls.Bit()) of a square; the array is re-used
+    //  for the next row so must be copied if it is kept.
+    void Row(int y, byte walls[]) throws IOException;
+
+    // Called once after the last row
+    default void End() throws IOException {
+    }
+}
@@ -0,0 +1,57 @@
+//
+// SidewinderGenerator.java
+// Generates a maze using the sidewinder algorithm.
+//
+//  Each row is split at random into runs of squares joined East-West, and
+//    each run is joined to the row above through one random square.  Like
+//    the binary tree it is a single pass with no working storage, but only
+//    the north row is a straight corridor.
+//
+//  On a circular maze the wall between the far east and far west squares is
+//    left in place, as each row needs an end; the result is still a perfect
+//    maze.
+//
+package maze;
+
+import java.util.Random;
+import maze.Maze.Walls;
+
+//
+// Sidewinder generator
+public class SidewinderGenerator implements MazeGenerator {
+
+    @Override
+    public Algorithm getAlgorithm() {
+        return Algorithm.Sidewinder;
+    }
+
+    @Override
+    public void Generate(Maze maze, Random rand) {
+        int width = maze.getWidth();
+        int height = maze.getHeight();
+
+        for (int y = 0; y < height; y++) {
+            int runStart = 0;
+            for (int x = 0; x < width; x++) {
+                boolean atEnd = (x == width - 1);
+
+                if (!atEnd && (y == 0 || rand.nextBoolean())) {
+                    // carry on the run East
+                    maze.Carve(maze.CellIndex(x, y), Walls.East);
+                } else {
+                    // close the run, joining a random square of it North
+                    if (y > 0) {
+                        int cell = runStart + rand.nextInt(x - runStart + 1);
+                        maze.Carve(maze.CellIndex(cell, y), Walls.North);
+                    }
+                    runStart = x + 1;
+                }
+            }
+        }
+    }
+
+    @Override
+    public long getWorkingBytes() {
+        return 0;
+    }
+}
@@ -0,0 +1,142 @@
+//
+// SolutionIndex.java
+// The steps of a maze's solution grouped by the block of squares they start
+//  in, so the part of a long solution inside an area can be drawn without
+//  visiting every step.
+//
+//  The maze is split into blocks of BLOCK by BLOCK squares.  Each block has
+//    the runs of consecutive steps which start in it, as ranges of step
+//    numbers.  A step ends in the block it starts in or next to it, so the
+//    steps which reach into an area are found from the blocks it overlaps,
+//    a square wider each side.  The points of the path are held as x and y,
+//    8 bytes a square, plus 8 bytes a run.  The index must be built again if
+//    the map changes.
+//
+package maze;
+
+import java.awt.Rectangle;
+
+//
+// Solution path block index
+public class SolutionIndex {
+
+    public static final int BLOCK = 64;
+
+    private final Maze maze;
+    private final long version;  // map version the index was built from
+    private final int xs[];  // points of the path, from the exit
+    private final int ys[];
+    private final int blocksAcross;
+    private final int blocksDown;
+    private final int firstRun[];  // first run of each block, runs of block b are firstRun[b] to firstRun[b + 1]
+    private final int runs[];  // start step and end step (exclusive) of each run
+    private final Rectangle bounds;  // squares the path covers
+
+    // Constructor - index the solution of the maze as it is now
+    public SolutionIndex(Maze maze) {
+        this.maze = maze;
+        this.version = maze.getMapVersion();
+
+        int count[] = {0};
+        maze.VisitSolution((x1, y1, x2, y2) -> count[0]++);
+        int steps = count[0];
+        xs = new int[steps + 1];
+        ys = new int[steps + 1];
+        int at[] = {0};
+        maze.VisitSolution((x1, y1, x2, y2) -> {
+            int i = at[0]++;
+            xs[i] = x1;
+            ys[i] = y1;
+            xs[i + 1] = x2;
+            ys[i + 1] = y2;
+        });
+
+        blocksAcross = (maze.getWidth() + BLOCK - 1) / BLOCK;
+        blocksDown = (maze.getHeight() + BLOCK - 1) / BLOCK;
+        int blocks = blocksAcross * blocksDown;
+
+        // count the runs starting in each block, then fill them in
+        firstRun = new int[blocks + 1];
+        int previous = -1;
+        for (int s = 0; s < steps; s++) {
+            int b = BlockOf(s);
+            if (b != previous) {
+                firstRun[b + 1]++;
+                previous = b;
+            }
+        }
+        for (int b = 0; b < blocks; b++) {
+            firstRun[b + 1] += firstRun[b];
+        }
+        runs = new int[firstRun[blocks] * 2];
+        int next[] = new int[blocks];
+        previous = -1;
+        int run = -1;
+        for (int s = 0; s < steps; s++) {
+            int b = BlockOf(s);
+            if (b != previous) {
+                run = (firstRun[b] + next[b]++) * 2;
+                runs[run] = s;
+                previous = b;
+            }
+            runs[run + 1] = s + 1;
+        }
+
+        int minX = Integer.MAX_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE;
+        int maxY = Integer.MIN_VALUE;
+        for (int i = 0; i < xs.length && steps > 0; i++) {
+            minX = Math.min(minX, xs[i]);
+            minY = Math.min(minY, ys[i]);
+            maxX = Math.max(maxX, xs[i]);
+            maxY = Math.max(maxY, ys[i]);
+        }
+        bounds = (steps > 0) ? new Rectangle(minX, minY, maxX - minX + 1, maxY - minY + 1) : new Rectangle();
+    }
+
+    // Block a step starts in
+    private int BlockOf(int step) {
+        return (ys[step] / BLOCK) * blocksAcross + xs[step] / BLOCK;
+    }
+
+    // Was the index built from this maze as it is now
+    public boolean IsFor(Maze m) {
+        return m == maze && m.getMapVersion() == version;
+    }
+
+    // Number of steps in the solution
+    public int getSteps() {
+        return xs.length - 1;
+    }
+
+    // Squares the solution covers, empty if there is no solution
+    public Rectangle getBounds() {
+        return new Rectangle(bounds);
+    }
+
+    // Call the visitor for each step which can reach into the squares
+    //  x1, y1 to x2, y2 inclusive.  Steps of a run are visited in order,
+    //  from the exit end, but the runs are visited block by block.
+    public void VisitSteps(int x1, int y1, int x2, int y2, SolutionPath.StepVisitor visitor) {
+        int fromX = Math.max(0, (x1 - 1) / BLOCK);
+        int fromY = Math.max(0, (y1 - 1) / BLOCK);
+        int toX = Math.min(blocksAcross - 1, (x2 + 1) / BLOCK);
+        int toY = Math.min(blocksDown - 1, (y2 + 1) / BLOCK);
+        for (int by = fromY; by <= toY; by++) {
+            for (int bx = fromX; bx <= toX; bx++) {
+                int b = by * blocksAcross + bx;
+                for (int r = firstRun[b]; r < firstRun[b + 1]; r++) {
+                    for (int s = runs[r * 2], end = runs[r * 2 + 1]; s < end; s++) {
+                        visitor.Step(xs[s], ys[s], xs[s + 1], ys[s + 1]);
+                    }
+                }
+            }
+        }
+    }
+
+    // Number of bytes used by the index
+    public long BytesUsed() {
+        return (long) (xs.length + ys.length + firstRun.length + runs.length) * Integer.BYTES;
+    }
+}
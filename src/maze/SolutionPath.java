@@ -0,0 +1,77 @@
+//
+// SolutionPath.java
+// The squares of a path through a maze, held as packed square indexes.
+//
+//  The path is an array of square indexes (y * width + x) from the exit back
+//    to the entrance, which is never changed once found, so it can be shared
+//    between copies of a maze.  A path costs four bytes a square (a million
+//    squares in 4MB).  The squares are read with Get/getX/getY or
+//    ForEachStep, without creating an object per square.
+//
+package maze;
+
+import java.util.Arrays;
+
+//
+// Packed maze path
+public class SolutionPath {
+
+    // Receives each step of a path, as the squares at either end
+    public interface StepVisitor {
+        void Step(int x1, int y1, int x2, int y2);
+    }
+
+    private final int cells[];  // shared, never changed
+    private final int width;
+
+    // Constructor - path over the given squares, from the exit to the entrance
+    public SolutionPath(int cells[], int width) {
+        this.cells = cells;
+        this.width = width;
+    }
+
+    public int size() {
+        return cells.length;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    // Get the index of a square on the path, 0 is the exit end
+    public int Get(int i) {
+        return cells[i];
+    }
+
+    public int getX(int i) {
+        return Get(i) % width;
+    }
+
+    public int getY(int i) {
+        return Get(i) / width;
+    }
+
+    // Call the visitor for each step along the path, from the exit end
+    public void ForEachStep(StepVisitor visitor) {
+        int count = size();
+        if (count == 0) {
+            return;
+        }
+        int prev = Get(0);
+        for (int i = 1; i < count; i++) {
+            int cell = Get(i);
+            visitor.Step(prev % width, prev / width, cell % width, cell / width);
+            prev = cell;
+        }
+    }
+
+    // Copy the squares of the path into a new array
+    public int[] ToArray() {
+        return Arrays.copyOf(cells, cells.length);
+    }
+
+    // Number of bytes used by the path
+    public long BytesUsed() {
+        return (long) cells.length * Integer.BYTES;
+    }
+}
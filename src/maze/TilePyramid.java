@@ -0,0 +1,458 @@
+//
+// TilePyramid.java
+// A deep zoom pyramid of image tiles of a rectangular maze, for browsing
+//  mazes too large to draw on demand.
+//
+//  Level 0 is the whole maze in a single TILE pixel square tile, and each
+//    level below it doubles the scale, down to the finest level where a
+//    square is FINEST_SQUARE pixels across.  A tile is made the first time
+//    it is asked for, on a pool of worker threads.  Where squares are at
+//    least MazePainter.PIXEL_DETAIL pixels across it is drawn from the map,
+//    by a painter for the thread.  Above that it is shaded from the density
+//    of the walls, a WallDensity the painters share.  Building the density
+//    reads every square once, the first time a coarse tile is made, and
+//    after that a coarse tile costs no more than a fine one however large
+//    the maze.
+//
+//  If a directory is given, every tile made is written there as a PNG, in a
+//    directory for the maze named from its size and a hash of its walls.  A
+//    maze which changes gets new tiles, and tiles made once (by this run or
+//    an earlier one) are read back rather than made again.  Decoded tiles
+//    are held in memory in a least recently used cache of a fixed number of
+//    tiles, 256K bytes each.
+//
+//  Get never waits.  It returns a tile held in memory, or null after asking
+//    for the tile to be read or made, and the listener is called (on a pool
+//    thread) as each tile is ready.  Prefetch asks for tiles only while the
+//    pool has a thread with nothing to do, so tiles around the view are made
+//    while the user looks at it.  Close drops the tiles held, stops tiles
+//    waiting to be made and waits for those being made, so the maze can be
+//    changed once it returns.  A tile made while the pyramid was being closed
+//    or after the maze changed is thrown away, never held or written.
+//
+package maze;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.imageio.ImageIO;
+
+//
+// Maze image tile pyramid
+public class TilePyramid {
+
+    public static final int TILE = 256;  // pixels across a tile
+    public static final int FINEST_SQUARE = 8;  // pixels across a square at the finest level
+
+    private final Maze maze;
+    private final long version;  // map version the tiles are for
+    private final Color background;
+    private final Path root;  // on-disk tier, null if none
+    private final int capacity;  // tiles held in memory
+    private final int levels;
+    private final ForkJoinPool pool;
+    private final Runnable listener;
+
+    private final LinkedHashMap<Long, BufferedImage> tiles;
+    private final ConcurrentHashMap<Long, ForkJoinTask<BufferedImage>> making = new ConcurrentHashMap<>();
+    private final ThreadLocal<MazePainter> painters;
+    private Path directory = null;  // the maze's directory, named when first needed
+    private WallDensity density = null;  // built when first needed, guarded by painters
+    private volatile boolean closed = false;
+    private int running = 0;  // tasks in compute(), guarded by making
+
+    // Counters
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong made = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    // Constructor - pyramid of the maze as it is now, holding up to capacity
+    //  tiles in memory and all tiles made under root (null for none).  The
+    //  listener, which may be null, is called as each tile is ready
+    public TilePyramid(Maze maze, Color background, Path root, int capacity, ForkJoinPool pool, Runnable listener) {
+        if (maze.isCircular()) {
+            throw new IllegalArgumentException("Tile pyramids are only made for rectangular mazes");
+        }
+        this.maze = maze;
+        this.version = maze.getMapVersion();
+        this.background = background;
+        this.root = root;
+        this.capacity = capacity;
+        this.pool = pool;
+        this.listener = listener;
+        this.painters = ThreadLocal.withInitial(() -> {
+            MazePainter painter = new MazePainter(maze);
+            painter.setBackground(background);
+            return painter;
+        });
+
+        // enough levels that the coarsest fits in a tile, the maze has half
+        //  a square spare each side so the outer walls are inside the tiles
+        long pixels = (long) (Math.max(maze.getWidth(), maze.getHeight()) + 1) * FINEST_SQUARE;
+        int count = 1;
+        while (pixels > TILE) {
+            pixels = (pixels + 1) / 2;
+            count++;
+        }
+        levels = count;
+
+        // access ordered, so the eldest entry is the least recently used
+        this.tiles = new LinkedHashMap<Long, BufferedImage>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, BufferedImage> eldest) {
+                if (size() > TilePyramid.this.capacity) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    // Was the pyramid made for this maze as it is now
+    public boolean IsFor(Maze m) {
+        return m == maze && m.getMapVersion() == version;
+    }
+
+    // Number of levels, 0 (the whole maze in one tile) to getLevels() - 1
+    public int getLevels() {
+        return levels;
+    }
+
+    // Pixels across a square at a level
+    public double Scale(int level) {
+        return (double) FINEST_SQUARE / (1L << (levels - 1 - level));
+    }
+
+    // Coarsest level whose squares are at least the given number of pixels
+    //  across, the finest level if none are
+    public int LevelFor(double squarePixels) {
+        for (int level = 0; level < levels; level++) {
+            if (Scale(level) >= squarePixels) {
+                return level;
+            }
+        }
+        return levels - 1;
+    }
+
+    // Number of tiles across a level
+    public int Across(int level) {
+        return (int) Math.ceil((maze.getWidth() + 1) * Scale(level) / TILE);
+    }
+
+    // Number of tiles down a level
+    public int Down(int level) {
+        return (int) Math.ceil((maze.getHeight() + 1) * Scale(level) / TILE);
+    }
+
+    // Position of the left edge of a square, in pixels of the whole level
+    public double SquareX(int level, double x) {
+        return (x + 0.5) * Scale(level);
+    }
+
+    // Position of the top edge of a square, in pixels of the whole level
+    public double SquareY(int level, double y) {
+        return (y + 0.5) * Scale(level);
+    }
+
+    // Get a tile if it is held in memory, otherwise ask for it and return null
+    public BufferedImage Get(int level, int tx, int ty) {
+        BufferedImage tile = Held(Key(level, tx, ty));
+        if (tile != null) {
+            hits.incrementAndGet();
+        } else {
+            Start(level, tx, ty);
+        }
+        return tile;
+    }
+
+    // Get a tile if it is held in memory, without asking for it
+    public BufferedImage GetHeld(int level, int tx, int ty) {
+        return Held(Key(level, tx, ty));
+    }
+
+    // Ask for the tiles tx1, ty1 to tx2, ty2 of a level if the pool has
+    //  nothing else to do
+    public void Prefetch(int level, int tx1, int ty1, int tx2, int ty2) {
+        for (int ty = Math.max(0, ty1); ty <= Math.min(ty2, Down(level) - 1); ty++) {
+            for (int tx = Math.max(0, tx1); tx <= Math.min(tx2, Across(level) - 1); tx++) {
+                if (pool.hasQueuedSubmissions() || making.size() >= pool.getParallelism()) {
+                    return;
+                }
+                if (Held(Key(level, tx, ty)) == null) {
+                    Start(level, tx, ty);
+                }
+            }
+        }
+    }
+
+    // Drop the tiles held, cancel the tiles not yet started and wait for
+    //  those being made, so the maze can be changed afterwards.  The
+    //  listener is not told about them.  The tiles on disk are kept
+    public void Close() {
+        closed = true;
+        synchronized (tiles) {
+            tiles.clear();
+        }
+        synchronized (painters) {
+            density = null;
+        }
+        for (ForkJoinTask<BufferedImage> task : making.values()) {
+            task.cancel(false);
+        }
+        synchronized (making) {
+            boolean interrupted = false;
+            while (running > 0) {
+                try {
+                    making.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public int size() {
+        synchronized (tiles) {
+            return tiles.size();
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getDiskHits() {
+        return diskHits.get();
+    }
+
+    public long getMade() {
+        return made.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d/%d tiles, %d levels, %d hits, %d disk hits, %d made, %d evictions",
+                size(), capacity, levels, getHits(), getDiskHits(), getMade(), getEvictions());
+    }
+
+    // Key of a tile in the cache
+    private static long Key(int level, int tx, int ty) {
+        return ((long) level << 58) | ((long) ty << 29) | tx;
+    }
+
+    private BufferedImage Held(long key) {
+        synchronized (tiles) {
+            return tiles.get(key);
+        }
+    }
+
+    private void Hold(long key, BufferedImage tile) {
+        synchronized (tiles) {
+            if (!closed) {
+                tiles.put(key, tile);
+            }
+        }
+    }
+
+    // Get the task reading or making a tile, starting one if there is none,
+    //  null once the pyramid is closed.  A task started from one of the
+    //  pool's threads is forked, so the thread can run it while it waits
+    private ForkJoinTask<BufferedImage> Start(int level, int tx, int ty) {
+        if (closed) {
+            return null;
+        }
+        TileTask fresh = new TileTask(level, tx, ty);
+        ForkJoinTask<BufferedImage> task = making.putIfAbsent(fresh.key, fresh);
+        if (task == null) {
+            task = fresh;
+            if (ForkJoinTask.getPool() == pool) {
+                fresh.fork();
+            } else {
+                pool.execute(fresh);
+            }
+        }
+        return task;
+    }
+
+    //
+    // Reads or makes a tile, and holds it
+    private class TileTask extends RecursiveTask<BufferedImage> {
+
+        private static final long serialVersionUID = 1L;
+
+        final int level;
+        final int tx;
+        final int ty;
+        final long key;
+
+        TileTask(int level, int tx, int ty) {
+            this.level = level;
+            this.tx = tx;
+            this.ty = ty;
+            this.key = Key(level, tx, ty);
+        }
+
+        @Override
+        protected BufferedImage compute() {
+            synchronized (making) {
+                running++;
+            }
+            try {
+                BufferedImage tile = Held(key);
+                if (tile == null && !closed) {
+                    tile = Load(level, tx, ty);
+                    if (tile != null) {
+                        diskHits.incrementAndGet();
+                    } else {
+                        tile = Make(level, tx, ty);
+                        made.incrementAndGet();
+
+                        // the map may have changed while the tile was drawn
+                        if (closed || !IsFor(maze)) {
+                            return null;
+                        }
+                        Save(level, tx, ty, tile);
+                    }
+                    Hold(key, tile);
+                }
+                return tile;
+            } finally {
+                making.remove(key, this);
+                if (listener != null && !closed) {
+                    listener.run();
+                }
+                synchronized (making) {
+                    if (--running == 0) {
+                        making.notifyAll();
+                    }
+                }
+            }
+        }
+    }
+
+    // Make a tile, drawn from the map, or from the density of the walls
+    //  where squares are smaller than MazePainter.PIXEL_DETAIL
+    private BufferedImage Make(int level, int tx, int ty) {
+        BufferedImage tile = new BufferedImage(TILE, TILE, BufferedImage.TYPE_INT_RGB);
+        double scale = Scale(level);
+        MazePainter painter = painters.get();
+        if (scale < MazePainter.PIXEL_DETAIL) {
+            painter.setDensity(Density());
+        }
+        Graphics2D g = tile.createGraphics();
+        g.setColor(background);
+        g.fillRect(0, 0, TILE, TILE);
+        MazePainter.RectLayout layout = new MazePainter.RectLayout(maze,
+                SquareX(level, 0) - (double) tx * TILE, SquareY(level, 0) - (double) ty * TILE, scale, scale);
+        painter.DrawRectangularWalls(g, layout, new Rectangle(0, 0, TILE, TILE));
+        g.dispose();
+        return tile;
+    }
+
+    // Get the density of the walls, building it the first time, or again
+    //  if the maze has changed
+    private WallDensity Density() {
+        synchronized (painters) {
+            if (density == null || !density.IsFor(maze)) {
+                density = new WallDensity(maze);
+            }
+            return density;
+        }
+    }
+
+    // Directory the maze's tiles are written to, null if there is no disk
+    //  tier or the pyramid is closed.  The hash is only kept if the pyramid
+    //  was not closed while it was worked out, as the maze may have been
+    //  changing, and is worked out again until it is
+    private synchronized Path Directory() {
+        if (directory == null && root != null) {
+            String name = String.format("%dx%d-%016x-%06x", maze.getWidth(), maze.getHeight(),
+                    maze.WallHash(), background.getRGB() & 0xFFFFFF);
+            if (closed || !IsFor(maze)) {
+                return null;
+            }
+            directory = root.resolve(name);
+        }
+        return directory;
+    }
+
+    // File a tile is written to, null if there is none
+    private Path TileFile(int level, int tx, int ty) {
+        Path dir = Directory();
+        return (dir == null) ? null : dir.resolve(level + "/" + tx + "_" + ty + ".png");
+    }
+
+    // Write a tile to the disk tier.  A tile which can not be written is
+    //  just made again the next time it is needed
+    private void Save(int level, int tx, int ty, BufferedImage tile) {
+        if (root == null) {
+            return;
+        }
+        Path file = TileFile(level, tx, ty);
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.createDirectories(file.getParent());
+            Path temp = Files.createTempFile(file.getParent(), tx + "_" + ty, ".tmp");
+            ImageIO.write(tile, "png", temp.toFile());
+
+            // rename into place, so a reader never sees a partly written tile
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // not cached on disk
+        }
+    }
+
+    // Read a tile from the disk tier, null if it is not there or can not be read
+    private BufferedImage Load(int level, int tx, int ty) {
+        if (root == null) {
+            return null;
+        }
+        Path file = TileFile(level, tx, ty);
+        if (file == null || !Files.exists(file)) {
+            return null;
+        }
+        try {
+            BufferedImage read = ImageIO.read(file.toFile());
+            if (read == null || read.getWidth() != TILE || read.getHeight() != TILE) {
+                return null;
+            }
+            if (read.getType() == BufferedImage.TYPE_INT_RGB) {
+                return read;
+            }
+            BufferedImage tile = new BufferedImage(TILE, TILE, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = tile.createGraphics();
+            g.drawImage(read, 0, 0, null);
+            g.dispose();
+            return tile;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
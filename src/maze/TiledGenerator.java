@@ -0,0 +1,227 @@
+//
+// TiledGenerator.java
+// Generates a large maze in parallel by splitting it into tiles.
+//
+//  Each tile is generated as a small maze of its own, concurrently on a
+//    ForkJoinPool, with another generator (the backtracker by default).
+//    The tiles are then joined by a random spanning tree over the grid of
+//    tiles, opening exactly one passage across each tile boundary in the
+//    tree, so the result is still a perfect maze.
+//
+//  Every tile takes its own random stream split, in tile order, from a
+//    single seed, so for a given seed and tile size the maze is the same
+//    however many threads are used.  A tile maze is made once for each
+//    thread and used again for the tiles it generates, so a tile costs its
+//    generation and a copy of its walls, not a new map and neighbour table.
+//    A tile which fails to generate fails the whole maze.
+//
+package maze;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import maze.Maze.Walls;
+
+//
+// Parallel tiled generator
+public class TiledGenerator implements MazeGenerator {
+
+    public static final int DEFAULT_TILE_SIZE = 256;
+
+    private static final int WALL_BITS = Walls.North.Bit() | Walls.East.Bit() | Walls.South.Bit() | Walls.West.Bit();
+
+    private final Algorithm tileAlgorithm;
+    private final int tileSize;
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+    private long workingBytes = 0;
+
+    // Constructor - backtracker tiles of the default size
+    public TiledGenerator() {
+        this(Algorithm.Backtracker, DEFAULT_TILE_SIZE);
+    }
+
+    // Constructor - tiles of a given size, generated with a given algorithm
+    public TiledGenerator(Algorithm tileAlgorithm, int tileSize) {
+        if (tileAlgorithm == Algorithm.Tiled) {
+            throw new IllegalArgumentException("Tiles cannot themselves be tiled");
+        }
+        this.tileAlgorithm = tileAlgorithm;
+        this.tileSize = Math.max(2, tileSize);
+    }
+
+    // Set the pool the tiles are generated on
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public Algorithm getAlgorithm() {
+        return Algorithm.Tiled;
+    }
+
+    @Override
+    public void Generate(Maze maze, Random rand) {
+        Generate(maze, rand.nextLong());
+    }
+
+    // Generate the maze from a seed
+    public void Generate(Maze maze, long seed) {
+        int width = maze.getWidth();
+        int height = maze.getHeight();
+        int tilesX = (width + tileSize - 1) / tileSize;
+        int tilesY = (height + tileSize - 1) / tileSize;
+
+        // Split a random stream for each tile, in tile order.  Tile mazes
+        //  are taken from the spares and put back, so there are only as
+        //  many as there are threads generating at once
+        SplittableRandom root = new SplittableRandom(seed);
+        ConcurrentLinkedQueue<Maze> spares = new ConcurrentLinkedQueue<>();
+        List<Callable<Void>> tasks = new ArrayList<>(tilesX * tilesY);
+        for (int ty = 0; ty < tilesY; ty++) {
+            for (int tx = 0; tx < tilesX; tx++) {
+                final int x0 = tx * tileSize;
+                final int y0 = ty * tileSize;
+                final long tileSeed = root.split().nextLong();
+                tasks.add(() -> {
+                    Maze tile = spares.poll();
+                    if (tile == null) {
+                        tile = new Maze();
+                    }
+                    GenerateTile(maze, tile, x0, y0, new Random(tileSeed));
+                    spares.add(tile);
+                    return null;
+                });
+            }
+        }
+        RunAll(tasks);
+        spares.clear();
+
+        // Join the tiles by a random spanning tree, using a small maze with
+        //  a square per tile
+        Random stitch = new Random(root.nextLong());
+        Maze tiles = new Maze();
+        tiles.setSize(tilesX, tilesY);
+        tiles.ClearMap(maze.isCircular());
+        new KruskalGenerator().Generate(tiles, stitch);
+
+        for (int ty = 0; ty < tilesY; ty++) {
+            for (int tx = 0; tx < tilesX; tx++) {
+                int x0 = tx * tileSize;
+                int y0 = ty * tileSize;
+                int tw = Math.min(tileSize, width - x0);
+                int th = Math.min(tileSize, height - y0);
+
+                // Open one passage on the east edge of the tile (may wrap around)
+                if (!tiles.IsWall(tx, ty, Walls.East)) {
+                    maze.Carve(maze.CellIndex(x0 + tw - 1, y0 + stitch.nextInt(th)), Walls.East);
+                }
+                // Open one passage on the south edge of the tile
+                if (!tiles.IsWall(tx, ty, Walls.South)) {
+                    maze.Carve(maze.CellIndex(x0 + stitch.nextInt(tw), y0 + th - 1), Walls.South);
+                }
+            }
+        }
+
+        // one tile map per thread, plus the tile maze and stitching walls
+        workingBytes = (long) Math.min(tilesX * tilesY, pool.getParallelism())
+                * Math.min(tileSize, width) * Math.min(tileSize, height) + (long) tilesX * tilesY * 12;
+    }
+
+    // Run the tile tasks on the pool and wait for them all, failing if any
+    //  of them failed
+    private void RunAll(List<Callable<Void>> tasks) {
+        try {
+            for (Future<Void> done : pool.invokeAll(tasks)) {
+                done.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Tiled generation was interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException("A tile failed to generate", cause);
+        }
+    }
+
+    // Generate one tile in a tile maze, then copy its walls into the maze.
+    //  The tile maze keeps its map and neighbours while its size is the same
+    private void GenerateTile(Maze maze, Maze tile, int x0, int y0, Random rand) {
+        int tw = Math.min(tileSize, maze.getWidth() - x0);
+        int th = Math.min(tileSize, maze.getHeight() - y0);
+
+        tile.setSize(tw, th);
+        tile.ClearMap(false);
+        tileAlgorithm.Create().Generate(tile, rand);
+
+        // Tiles write to different squares of the map, so need no locking
+        for (int y = 0; y < th; y++) {
+            int from = tile.CellIndex(0, y);
+            int to = maze.CellIndex(x0, y0 + y);
+            for (int x = 0; x < tw; x++) {
+                maze.SetCell(to + x, tile.GetCell(from + x) & WALL_BITS);
+            }
+        }
+    }
+
+    @Override
+    public long getWorkingBytes() {
+        return workingBytes;
+    }
+
+    // Generate the same maze with 1, 2, 4 ... up to maxThreads threads,
+    //  printing the time, speed-up and whether the maze matched the single
+    //  thread maze.  Each is generated once untimed first, so the times do
+    //  not include compiling the code
+    public static void ScalingReport(int width, int height, boolean circular, long seed,
+            int maxThreads, PrintStream out) {
+        long baseNanos = 0;
+        long baseHash = 0;
+
+        out.printf("Tiled generation of %dx%d %s maze, seed %d%n", width, height,
+                circular ? "circular" : "rectangular", seed);
+        out.printf("%8s %12s %14s %9s %10s%n", "threads", "ms", "cells/s", "speed-up", "identical");
+
+        for (int threads = 1;; threads = Math.min(threads * 2, maxThreads)) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            TiledGenerator gen = new TiledGenerator();
+            gen.setPool(pool);
+
+            Maze maze = new Maze();
+            maze.setSize(width, height);
+            maze.ClearMap(circular);
+            gen.Generate(maze, seed);
+            maze.ClearMap(circular);
+
+            long start = System.nanoTime();
+            gen.Generate(maze, seed);
+            long nanos = System.nanoTime() - start;
+            pool.shutdown();
+
+            long hash = maze.WallHash();
+            if (threads == 1) {
+                baseNanos = nanos;
+                baseHash = hash;
+            }
+            out.printf("%8d %12.1f %14.0f %9.2f %10s%n", threads, nanos / 1.0e6,
+                    (double) width * height * 1.0e9 / nanos, (double) baseNanos / nanos,
+                    hash == baseHash ? "yes" : "NO");
+
+            if (threads >= maxThreads) {
+                break;
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+//
+// Topology.java
+// Defines how the squares of a maze map are joined to each other.
+//
+//  A topology gives the neighbour of a square in each of its directions,
+//    or OFF_MAP where the square is on the edge of the map.  Squares are
+//    addressed by a flat row-major index (y * width + x).  NeighbourTable()
+//    works every neighbour out once into a flat int array, (cell *
+//    directions + dir), so a step across the map is one array read with no
+//    wrap around or edge tests, whatever the shape of the map.
+//
+//  Grid topologies have four directions, numbered as the Maze.Walls values
+//    North, East, South and West.  The maze map holds four walls a square,
+//    so only these can be used by Maze; the hexagonal topology has six.
+//
+package maze;
+
+//
+// Map topology
+public interface Topology {
+
+    // Neighbour value for a direction which leads off the map
+    int OFF_MAP = -1;
+
+    // Plain rectangle
+    Topology RECTANGULAR = new GridTopology("rectangular", false, false, false);
+
+    // Rectangle wrapped east to west into a cylinder, drawn as rings
+    Topology CIRCULAR = new GridTopology("circular", true, true, false);
+
+    // Rectangle wrapped east to west and north to south
+    Topology TORUS = new GridTopology("torus", false, true, true);
+
+    // Offset rows of hexagons
+    Topology HEXAGONAL = new HexTopology();
+
+    // Name of the topology
+    String getName();
+
+    // Number of directions out of a square
+    int getDirections();
+
+    // Direction back the way a direction came
+    int Opposite(int dir);
+
+    // Neighbour of a square in a direction, OFF_MAP if none
+    int Neighbour(int cell, int dir, int width, int height);
+
+    // Fewest moves between two squares if there were no walls, never more
+    //  than the real number of moves (used as the A* estimate)
+    int MinMoves(int from, int to, int width, int height);
+
+    // Can a square be on the edge of the map in a direction
+    boolean HasEdge(int dir);
+
+    // Is the map drawn as rings rather than rows
+    boolean isCircular();
+
+    // Work out the neighbour of every square in every direction
+    default int[] NeighbourTable(int width, int height) {
+        int dirs = getDirections();
+        int cells = width * height;
+        int table[] = new int[cells * dirs];
+        for (int cell = 0, i = 0; cell < cells; cell++) {
+            for (int dir = 0; dir < dirs; dir++) {
+                table[i++] = Neighbour(cell, dir, width, height);
+            }
+        }
+        return table;
+    }
+
+    // Get the topology with a given name, null if there is none
+    static Topology ForName(String name) {
+        for (Topology t : new Topology[]{RECTANGULAR, CIRCULAR, TORUS, HEXAGONAL}) {
+            if (t.getName().equalsIgnoreCase(name)) {
+                return t;
+            }
+        }
+        return null;
+    }
+}
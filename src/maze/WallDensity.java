@@ -0,0 +1,128 @@
+//
+// WallDensity.java
+// The density of the walls of a rectangular maze, at a series of reduced
+//  resolutions, used to draw a maze whose squares are smaller than a pixel.
+//
+//  Level k splits the maze into blocks of 2^k by 2^k squares, and holds a
+//    byte for each block giving the share of its walls which are in place,
+//    0 for none to 255 for all.  Each square counts its North and West walls.
+//    Level 1 is built from the map and each level above it from the one
+//    below, so building them all reads every square once.  A level is
+//    chosen so its blocks are about a pixel, and drawing costs the same
+//    whatever the size of the maze.
+//
+package maze;
+
+import maze.Maze.Walls;
+
+//
+// Wall density levels of a maze
+public class WallDensity {
+
+    private final Maze maze;
+    private final long version;  // map version the levels were built from
+    private final byte levels[][];  // levels[k - 1] is level k
+    private final int widths[];
+    private final int heights[];
+
+    // Constructor - build every level for the maze as it is now
+    public WallDensity(Maze maze) {
+        this.maze = maze;
+        this.version = maze.getMapVersion();
+
+        // enough levels that the last is a single block
+        int width = maze.getWidth();
+        int height = maze.getHeight();
+        int count = Math.max(1, 32 - Integer.numberOfLeadingZeros(Math.max(width, height) - 1));
+        levels = new byte[count][];
+        widths = new int[count];
+        heights = new int[count];
+
+        // level 1, from the walls of each 2 by 2 block of squares
+        int w = (width + 1) >> 1;
+        int h = (height + 1) >> 1;
+        byte first[] = new byte[w * h];
+        int bits = Walls.North.Bit() | Walls.West.Bit();
+        for (int y = 0; y < height; y += 2) {
+            for (int x = 0; x < width; x += 2) {
+                int walls = 0;
+                int squares = 0;
+                for (int j = y; j < Math.min(y + 2, height); j++) {
+                    for (int i = x; i < Math.min(x + 2, width); i++) {
+                        walls += Integer.bitCount(maze.GetCell(maze.CellIndex(i, j)) & bits);
+                        squares++;
+                    }
+                }
+                first[(y >> 1) * w + (x >> 1)] = (byte) (walls * 255 / (squares * 2));
+            }
+        }
+        levels[0] = first;
+        widths[0] = w;
+        heights[0] = h;
+
+        // each level above, averaging up to 4 blocks of the level below
+        for (int k = 1; k < count; k++) {
+            byte below[] = levels[k - 1];
+            int bw = widths[k - 1];
+            int bh = heights[k - 1];
+            w = (bw + 1) >> 1;
+            h = (bh + 1) >> 1;
+            byte level[] = new byte[w * h];
+            for (int y = 0; y < h; y++) {
+                for (int x = 0; x < w; x++) {
+                    int sum = 0;
+                    int blocks = 0;
+                    for (int j = y * 2; j < Math.min(y * 2 + 2, bh); j++) {
+                        for (int i = x * 2; i < Math.min(x * 2 + 2, bw); i++) {
+                            sum += below[j * bw + i] & 0xFF;
+                            blocks++;
+                        }
+                    }
+                    level[y * w + x] = (byte) (sum / blocks);
+                }
+            }
+            levels[k] = level;
+            widths[k] = w;
+            heights[k] = h;
+        }
+    }
+
+    // Were the levels built from this maze as it is now
+    public boolean IsFor(Maze m) {
+        return m == maze && m.getMapVersion() == version;
+    }
+
+    // Number of levels, level 1 to getLevels()
+    public int getLevels() {
+        return levels.length;
+    }
+
+    // Number of blocks across a level
+    public int Width(int level) {
+        return widths[level - 1];
+    }
+
+    // Number of blocks down a level
+    public int Height(int level) {
+        return heights[level - 1];
+    }
+
+    // Density of a block of a level, 0 to 255
+    public int Get(int level, int x, int y) {
+        return levels[level - 1][y * widths[level - 1] + x] & 0xFF;
+    }
+
+    // The blocks of a level, a row at a time
+    byte[] Level(int level) {
+        return levels[level - 1];
+    }
+
+    // Number of bytes used by the levels
+    public long BytesUsed() {
+        long bytes = 0;
+        for (byte level[] : levels) {
+            bytes += level.length;
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,186 @@
+//
+// WallRuns.java
+// The walls of a rectangular maze merged into the longest straight runs
+//  they make, so a wall many squares long is drawn as one line.
+//
+//  The horizontal grid lines are numbered 0 (the top of the maze) to
+//    height (the bottom), and the vertical ones 0 (the left) to width.  A
+//    run is a stretch of a grid line with a wall along every square of it,
+//    held as its first square and the square after its last.  The runs of
+//    each line are in order along it, so those reaching into an area are
+//    found with a binary search.  Each square counts its North and West
+//    walls, and the last row and column their South and East walls.  8
+//    bytes a run; the runs must be found again if the map changes.
+//
+//  The runs can be found for just a window of the maze, for a maze too
+//    large to hold the runs of, cut short at the edges of the window.
+//
+package maze;
+
+import java.util.Arrays;
+import maze.Maze.Walls;
+
+//
+// Merged wall runs of a maze
+public class WallRuns {
+
+    private final Maze maze;
+    private final long version;  // map version the runs were found from
+    private final int left;  // window of squares the runs were found in
+    private final int top;
+    private final int columns;
+    private final int rows;
+    private final int firstAcross[];  // runs of horizontal line y are firstAcross[y] to firstAcross[y + 1]
+    private final int across[];  // first square and square after the last of each horizontal run
+    private final int firstDown[];
+    private final int down[];
+
+    //
+    // Visitor called with each run
+    public interface RunVisitor {
+        void Run(int line, int from, int to);
+    }
+
+    // Constructor - find the runs of the maze as it is now
+    public WallRuns(Maze maze) {
+        this(maze, 0, 0, maze.getWidth() - 1, maze.getHeight() - 1);
+    }
+
+    // Constructor - find the runs in columns x1 to x2 and rows y1 to y2
+    //  of the maze, inclusive
+    public WallRuns(Maze maze, int x1, int y1, int x2, int y2) {
+        this.maze = maze;
+        this.version = maze.getMapVersion();
+        left = x1;
+        top = y1;
+        columns = x2 - x1 + 1;
+        rows = y2 - y1 + 1;
+        firstAcross = new int[rows + 2];
+        firstDown = new int[columns + 2];
+
+        // count the runs along each line, then fill them in
+        Scan(null, null);
+        for (int y = 0; y <= rows; y++) {
+            firstAcross[y + 1] += firstAcross[y];
+        }
+        for (int x = 0; x <= columns; x++) {
+            firstDown[x + 1] += firstDown[x];
+        }
+        across = new int[firstAcross[rows + 1] * 2];
+        down = new int[firstDown[columns + 1] * 2];
+        Scan(firstAcross.clone(), firstDown.clone());
+    }
+
+    // Go through the window a row at a time, finding where runs end.
+    //  With no cursors each run is counted against its line (one on,
+    //  ready to be summed), otherwise it is stored at the line's cursor
+    private void Scan(int acrossAt[], int downAt[]) {
+        int width = maze.getWidth();
+        int height = maze.getHeight();
+        int north = Walls.North.Bit();
+        int east = Walls.East.Bit();
+        int south = Walls.South.Bit();
+        int west = Walls.West.Bit();
+
+        // the row each vertical line's run started at, -1 if none is open
+        int open[] = new int[columns + 1];
+        Arrays.fill(open, -1);
+
+        for (int y = 0; y <= rows; y++) {
+            int j = top + y;
+            int start = -1;
+            for (int x = 0; x <= columns; x++) {
+                int i = left + x;
+
+                // wall along the top of square i of row j
+                boolean wall = false;
+                if (x < columns) {
+                    wall = (j < height)
+                            ? (maze.GetCell(maze.CellIndex(i, j)) & north) != 0
+                            : (maze.GetCell(maze.CellIndex(i, height - 1)) & south) != 0;
+                }
+                if (wall && start < 0) {
+                    start = i;
+                } else if (!wall && start >= 0) {
+                    Add(firstAcross, across, acrossAt, y, start, i);
+                    start = -1;
+                }
+
+                // wall along the left of square i of row j
+                boolean side = false;
+                if (y < rows) {
+                    side = (i < width)
+                            ? (maze.GetCell(maze.CellIndex(i, j)) & west) != 0
+                            : (maze.GetCell(maze.CellIndex(width - 1, j)) & east) != 0;
+                }
+                if (side && open[x] < 0) {
+                    open[x] = j;
+                } else if (!side && open[x] >= 0) {
+                    Add(firstDown, down, downAt, x, open[x], j);
+                    open[x] = -1;
+                }
+            }
+        }
+    }
+
+    // Count or store a run
+    private static void Add(int first[], int runs[], int at[], int line, int from, int to) {
+        if (at == null) {
+            first[line + 1]++;
+        } else {
+            int i = at[line]++ * 2;
+            runs[i] = from;
+            runs[i + 1] = to;
+        }
+    }
+
+    // Are the runs for the maze as it is now
+    public boolean IsFor(Maze m) {
+        return m == maze && m.getMapVersion() == version;
+    }
+
+    // Number of runs, across and down
+    public int getRuns() {
+        return (across.length + down.length) / 2;
+    }
+
+    // Call the visitor for each horizontal run on lines y1 to y2 which
+    //  reaches into columns x1 to x2, inclusive
+    public void VisitAcross(int x1, int y1, int x2, int y2, RunVisitor visitor) {
+        Visit(firstAcross, across, top, y1, y2, x1, x2, visitor);
+    }
+
+    // Call the visitor for each vertical run on lines x1 to x2 which
+    //  reaches into rows y1 to y2, inclusive
+    public void VisitDown(int x1, int y1, int x2, int y2, RunVisitor visitor) {
+        Visit(firstDown, down, left, x1, x2, y1, y2, visitor);
+    }
+
+    // Lines are numbered from the first line of the window, base
+    private static void Visit(int first[], int runs[], int base, int line1, int line2, int from, int to,
+            RunVisitor visitor) {
+        line1 = Math.max(line1 - base, 0);
+        line2 = Math.min(line2 - base, first.length - 2);
+        for (int line = line1; line <= line2; line++) {
+            // first run ending after the start of the range
+            int lo = first[line];
+            int hi = first[line + 1];
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (runs[mid * 2 + 1] <= from) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            for (int i = lo, end = first[line + 1]; i < end && runs[i * 2] <= to; i++) {
+                visitor.Run(base + line, runs[i * 2], runs[i * 2 + 1]);
+            }
+        }
+    }
+
+    // Number of bytes used by the runs
+    public long BytesUsed() {
+        return (long) (firstAcross.length + across.length + firstDown.length + down.length) * Integer.BYTES;
+    }
+}
@@ -0,0 +1,74 @@
+//
+// WilsonGenerator.java
+// Generates a maze using Wilson's algorithm (loop-erased random walks).
+//
+//  From each square not yet in the maze a random walk is made until it
+//    hits the maze, remembering only the last direction taken from each
+//    square so any loops are erased; the walk is then carved into the maze.
+//    Every possible maze is equally likely.  The first walks are slow on a
+//    large maze, but it needs only one byte per square.
+//
+package maze;
+
+import java.util.Random;
+import maze.Maze.Walls;
+
+//
+// Wilson generator
+public class WilsonGenerator implements MazeGenerator {
+
+    private long workingBytes = 0;
+
+    @Override
+    public Algorithm getAlgorithm() {
+        return Algorithm.Wilson;
+    }
+
+    @Override
+    public void Generate(Maze maze, Random rand) {
+        int cells = maze.getWidth() * maze.getHeight();
+        Walls dirs[] = Walls.values();
+
+        // Direction last taken from each square on the current walk
+        byte walk[] = new byte[cells];
+
+        // The maze starts as a single random square
+        maze.MarkUsed(rand.nextInt(cells));
+
+        for (int first = 0; first < cells; first++) {
+            if (!maze.IsAvailable(first)) {
+                continue;
+            }
+
+            // Walk at random until we hit the maze
+            int cell = first;
+            while (maze.IsAvailable(cell)) {
+                Walls dir = maze.RandomDirection(cell, rand);
+                walk[cell] = (byte) dir.ordinal();
+                cell = maze.Neighbour(cell, dir);
+            }
+
+            // Carve the loop-erased walk into the maze
+            cell = first;
+            while (true) {
+                Walls dir = dirs[walk[cell]];
+                int next = maze.Neighbour(cell, dir);
+                boolean reached = !maze.IsAvailable(next);
+
+                maze.MarkUsed(cell);
+                maze.Carve(cell, dir);
+                if (reached) {
+                    break;
+                }
+                cell = next;
+            }
+        }
+
+        workingBytes = cells;
+    }
+
+    @Override
+    public long getWorkingBytes() {
+        return workingBytes;
+    }
+}